@@ -1,5 +1,6 @@
 package com.example.demo.config;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.telegram.telegrambots.meta.TelegramBotsApi;
@@ -9,7 +10,10 @@ import com.example.demo.service.BotService;
 
 @Configuration
 public class BotConfig {
+    // Only receiving updates needs the registration. Without it the bot can still send messages,
+    // which lets tests run against a stub of the Bot API.
     @Bean
+    @ConditionalOnProperty(name = "telegram.bot.polling", havingValue = "true", matchIfMissing = true)
     public TelegramBotsApi telegramBotsApi(BotService botService) throws Exception {
         TelegramBotsApi api = new TelegramBotsApi(DefaultBotSession.class);
         api.registerBot(botService);
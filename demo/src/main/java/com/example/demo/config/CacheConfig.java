@@ -16,7 +16,6 @@ public class CacheConfig {
     CacheManager cacheManager() {
         SimpleCacheManager scm = new SimpleCacheManager();
         scm.setCaches(Arrays.asList(new ConcurrentMapCache("appVersions"), new ConcurrentMapCache("appVersion"), 
-        new ConcurrentMapCache("latestAppVersion"),
         new ConcurrentMapCache("userDevices"), new ConcurrentMapCache("userDevice")));
         return scm;
     }
@@ -0,0 +1,64 @@
+package com.example.demo.config;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class JobConfig {
+    @Bean
+    ThreadPoolTaskExecutor jobExecutor(
+    @Value("${jobs.executor.pool-size}") int poolSize,
+    @Value("${jobs.executor.queue-capacity}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("job-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean
+    ThreadPoolTaskExecutor importExecutor(
+    @Value("${upload.import.workers}") int workers,
+    @Value("${upload.import.queue-capacity}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("import-");
+        // A full queue blocks the parser until a worker takes the next chunk, instead of
+        // running the chunk on the parser thread and stalling the parsing behind it
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            if (pool.isShutdown()) throw new RejectedExecutionException("Import executor is shut down");
+            try {
+                pool.getQueue().put(task);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("Interrupted while waiting for an import worker", e);
+            }
+        });
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean
+    ThreadPoolTaskExecutor outboxExecutor(
+    @Value("${notification.outbox.workers}") int workers) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(workers);
+        executor.setThreadNamePrefix("outbox-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
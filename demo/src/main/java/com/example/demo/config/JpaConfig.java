@@ -0,0 +1,70 @@
+package com.example.demo.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.AbstractEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.SavepointManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+
+import jakarta.persistence.EntityManager;
+
+// HibernateJpaDialect doesn't expose savepoints, so Propagation.NESTED fails with
+// NestedTransactionNotSupportedException. This dialect sets them on the session's JDBC connection.
+@Configuration
+public class JpaConfig {
+    @Bean
+    static BeanPostProcessor savepointJpaDialect() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization (Object bean, String beanName) {
+                if (bean instanceof AbstractEntityManagerFactoryBean factory) {
+                    factory.setJpaDialect(new SavepointHibernateJpaDialect());
+                }
+                return bean;
+            }
+        };
+    }
+
+    static class SavepointHibernateJpaDialect extends HibernateJpaDialect {
+        @Override
+        public Object beginTransaction (EntityManager entityManager, TransactionDefinition definition)
+                throws SQLException, TransactionException {
+            return new SavepointTransactionData(entityManager.unwrap(SessionImplementor.class),
+                super.beginTransaction(entityManager, definition));
+        }
+
+        @Override
+        public void cleanupTransaction (Object transactionData) {
+            super.cleanupTransaction(transactionData instanceof SavepointTransactionData data ? data.transactionData() : transactionData);
+        }
+    }
+
+    // Rolling back to a savepoint only undoes the database writes. Entities changed inside the nested
+    // transaction keep their state in the persistence context, so it is meant for bulk statements.
+    private record SavepointTransactionData (SessionImplementor session, Object transactionData) implements SavepointManager {
+        @Override
+        public Object createSavepoint () {
+            // Pending changes of the outer transaction must not be rolled back with the savepoint
+            session.flush();
+            return session.doReturningWork(Connection::setSavepoint);
+        }
+
+        @Override
+        public void rollbackToSavepoint (Object savepoint) {
+            session.doWork(connection -> connection.rollback((Savepoint) savepoint));
+        }
+
+        @Override
+        public void releaseSavepoint (Object savepoint) {
+            session.doWork(connection -> connection.releaseSavepoint((Savepoint) savepoint));
+        }
+    }
+}
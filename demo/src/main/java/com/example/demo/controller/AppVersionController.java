@@ -101,6 +101,32 @@ public class AppVersionController {
         return ResponseEntity.ok().body(appVersionService.getLatestVersion(platform));
     }
     
+    @Operation(
+    summary = "Get App Versions below a version",
+    description = "Retrieves all app versions of a platform that are ordered before the specified version")
+    @GetMapping("/appVersions/belowVersion")
+    public ResponseEntity<List<AppVersionResponseDto>> getBelowVersion(
+    @Parameter(description = "Platform type (ANDROID or IOS)", required = true)
+    @RequestParam (required = true) String platform,
+    @Parameter(description = "Upper bound version (exclusive)", example = "0.0.3a", required = true)
+    @RequestParam (required = true) String version) {
+        return ResponseEntity.ok().body(appVersionService.getBelowVersion(platform, version));
+    }
+
+    @Operation(
+    summary = "Get App Versions between two versions",
+    description = "Retrieves all app versions of a platform that are ordered between the specified versions, both inclusive")
+    @GetMapping("/appVersions/betweenVersions")
+    public ResponseEntity<List<AppVersionResponseDto>> getBetweenVersions(
+    @Parameter(description = "Platform type (ANDROID or IOS)", required = true)
+    @RequestParam (required = true) String platform,
+    @Parameter(description = "Lower bound version", example = "0.0.2a", required = true)
+    @RequestParam (required = true) String from,
+    @Parameter(description = "Upper bound version", example = "0.0.4a", required = true)
+    @RequestParam (required = true) String to) {
+        return ResponseEntity.ok().body(appVersionService.getBetweenVersions(platform, from, to));
+    }
+    
     @Operation(
     summary = "Filter App Versions",
     description = "Search and filter app versions")
@@ -0,0 +1,70 @@
+package com.example.demo.controller;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.example.demo.service.ExportService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/export")
+@Tag(name = "Export", description = "Methods for exporting database tables as .csv files")
+public class ExportController {
+    private final ExportService exportService;
+
+    private interface CsvExport {
+        long write(Writer writer) throws IOException;
+    }
+
+    @Operation(
+    summary = "Export User Devices",
+    description = "Streams all User Devices as a CSV file. The header matches the User Devices upload")
+    @GetMapping(value = "/userDevices", produces = "text/csv")
+    public ResponseEntity<StreamingResponseBody> exportUserDevices () {
+        return csv("userDevices", exportService::exportUserDevices);
+    }
+
+    @Operation(
+    summary = "Export App Versions",
+    description = "Streams all App Versions as a CSV file. The header matches the App Versions upload")
+    @GetMapping(value = "/appVersions", produces = "text/csv")
+    public ResponseEntity<StreamingResponseBody> exportAppVersions () {
+        return csv("appVersions", exportService::exportAppVersions);
+    }
+
+    @Operation(
+    summary = "Export Notifications",
+    description = "Streams all Notifications as a CSV file")
+    @GetMapping(value = "/notifications", produces = "text/csv")
+    public ResponseEntity<StreamingResponseBody> exportNotifications () {
+        return csv("notifications", exportService::exportNotifications);
+    }
+
+    private ResponseEntity<StreamingResponseBody> csv (String name, CsvExport export) {
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            export.write(writer);
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + "_" + LocalDate.now() + ".csv\"")
+            .contentType(MediaType.parseMediaType("text/csv"))
+            .body(body);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.demo.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.demo.dto.BackgroundJobResponseDto;
+import com.example.demo.service.BackgroundJobService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/jobs")
+@Tag(name = "Jobs", description = "Methods for tracking and cancelling background jobs")
+public class JobController {
+    private final BackgroundJobService backgroundJobService;
+
+    @Operation(
+    summary = "Get background job",
+    description = "Retrieves status, progress (processed, succeeded, failed) and failed rows of a background job")
+    @GetMapping("/{id}")
+    public ResponseEntity<BackgroundJobResponseDto> getJob (
+    @Parameter(description = "ID of the job", required = true)
+    @PathVariable Long id) {
+        return ResponseEntity.ok(backgroundJobService.getById(id));
+    }
+
+    @Operation(
+    summary = "Cancel background job",
+    description = "Cancels a queued or running job. A running job stops after its current chunk")
+    @PutMapping("/cancel/{id}")
+    public ResponseEntity<BackgroundJobResponseDto> cancelJob (
+    @Parameter(description = "ID of the job to cancel", required = true)
+    @PathVariable Long id) {
+        return ResponseEntity.ok(backgroundJobService.cancel(id));
+    }
+}
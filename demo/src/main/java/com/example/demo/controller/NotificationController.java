@@ -1,7 +1,5 @@
 package com.example.demo.controller;
 
-import java.util.List;
-
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -11,10 +9,15 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.example.demo.dto.BackgroundJobResponseDto;
+import com.example.demo.dto.NotificationPageDto;
 import com.example.demo.dto.NotificationRequestDto;
 import com.example.demo.dto.NotificationResponseDto;
+import com.example.demo.enums.JobType;
+import com.example.demo.service.JobRunner;
 import com.example.demo.service.NotificationService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -29,35 +32,58 @@ import lombok.RequiredArgsConstructor;
 @Tag (name = "Notifications", description = "Methods for sending and managing notifications")
 public class NotificationController {
     private final NotificationService notificationService;
+    private final JobRunner jobRunner;
 
     @Operation (
     summary = "Get device's notifications",
-    description = "Retrieves all notifications for a specific device by its ID")
+    description = "Retrieves a page of notifications for a specific device by its ID, newest first")
     @GetMapping("/device/{deviceId}")
-    public ResponseEntity <List <NotificationResponseDto>> getDeviceNotifications(
+    public ResponseEntity <NotificationPageDto> getDeviceNotifications(
     @Parameter(description = "ID of the device to check notifications", required = true)
-    @PathVariable Long deviceId) {
-        return ResponseEntity.ok(notificationService.getNotificationsByDeviceId(deviceId));
+    @PathVariable Long deviceId,
+    @Parameter(description = "Cursor returned as nextCursor by the previous page, omit for the newest notifications")
+    @RequestParam(required = false) String cursor,
+    @Parameter(description = "Maximum number of notifications in the page")
+    @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(notificationService.getNotificationsByDeviceId(deviceId, cursor, size));
     }
 
     @Operation (
     summary = "Get user's notifications",
-    description = "Retrieves all notifications for a specific user by his ID")
+    description = "Retrieves a page of notifications for a specific user by his ID, newest first")
     @GetMapping("/user/{userId}")
-    public ResponseEntity <List <NotificationResponseDto>> getUserNotifications(
+    public ResponseEntity <NotificationPageDto> getUserNotifications(
     @Parameter(description = "ID of the user to check notifications", required = true)
-    @PathVariable Long userId) {
-        return ResponseEntity.ok(notificationService.getNotificationsByUserId(userId));
+    @PathVariable Long userId,
+    @Parameter(description = "Cursor returned as nextCursor by the previous page, omit for the newest notifications")
+    @RequestParam(required = false) String cursor,
+    @Parameter(description = "Maximum number of notifications in the page")
+    @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(notificationService.getNotificationsByUserId(userId, cursor, size));
     }
 
     @Operation (
     summary = "Get user's unread notifications",
-    description = "Retrieves all unread notifications for a specific user by his ID")
+    description = "Retrieves a page of unread notifications for a specific user by his ID, newest first")
     @GetMapping("/user/unread/{userId}")
-    public ResponseEntity <List <NotificationResponseDto>> getUserUnreadNotifications(
+    public ResponseEntity <NotificationPageDto> getUserUnreadNotifications(
     @Parameter(description = "ID of the user to check unread notifications", required = true)
+    @PathVariable Long userId,
+    @Parameter(description = "Cursor returned as nextCursor by the previous page, omit for the newest notifications")
+    @RequestParam(required = false) String cursor,
+    @Parameter(description = "Maximum number of notifications in the page")
+    @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(notificationService.getUnreadNotificationsByUserId(userId, cursor, size));
+    }
+
+    @Operation (
+    summary = "Get user's unread notifications count",
+    description = "Returns the number of unread notifications for a specific user by his ID, e.g. for an unread badge")
+    @GetMapping("/user/unread/{userId}/count")
+    public ResponseEntity <Long> getUserUnreadCount(
+    @Parameter(description = "ID of the user to count unread notifications", required = true)
     @PathVariable Long userId) {
-        return ResponseEntity.ok(notificationService.getUnreadNotificationsByUserId(userId));
+        return ResponseEntity.ok(notificationService.getUnreadCountByUserId(userId));
     }
 
     @Operation (
@@ -119,4 +145,13 @@ public class NotificationController {
     public ResponseEntity <String> sendToOutdated () {
         return ResponseEntity.ok(notificationService.sendNotificationsToOutdatedDevices());
     }
+
+    @Operation (
+    summary = "Start background sending of notifications to all outdated devices",
+    description = "Submits the sending of notifications to all devices with MANDATORY or DEPRECATED app versions as a background job " +
+    "and returns it immediately. Progress can be tracked through /api/jobs/{id}")
+    @PostMapping("/send/job")
+    public ResponseEntity <BackgroundJobResponseDto> sendToOutdatedJob () {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(jobRunner.submit(JobType.NOTIFY_OUTDATED));
+    }
 }
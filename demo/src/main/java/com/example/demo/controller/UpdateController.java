@@ -1,18 +1,37 @@
 package com.example.demo.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.example.demo.dto.BackgroundJobResponseDto;
+import com.example.demo.dto.CheckInRequestDto;
+import com.example.demo.dto.RolloutResultDto;
+import com.example.demo.dto.UpdateCheckResultDto;
 import com.example.demo.dto.UpdateResponseDto;
+import com.example.demo.enums.JobType;
+import com.example.demo.enums.UpdateType;
+import com.example.demo.service.CheckInService;
+import com.example.demo.service.JobRunner;
 import com.example.demo.service.UpdateService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -25,6 +44,9 @@ import lombok.RequiredArgsConstructor;
 @Tag(name = "Updates", description = "Methods for checking updates and managing update requirements")
 public class UpdateController {
     private final UpdateService updateService;
+    private final JobRunner jobRunner;
+    private final CheckInService checkInService;
+    private final ObjectMapper objectMapper;
     private static final Logger logger = LoggerFactory.getLogger(UpdateController.class);
 
     @Operation(
@@ -37,6 +59,29 @@ public class UpdateController {
         return ResponseEntity.ok().body(updateService.checkUserDeviceForUpdate(id));
     }
 
+    @Operation(
+    summary = "Device check-in",
+    description = "Records that a device is alive on the given version and returns its update decision. " +
+    "Heartbeats are written in periodic batches, only a version change is written immediately")
+    @PostMapping("/checkin/{id}")
+    public ResponseEntity<UpdateResponseDto> checkIn (
+    @Parameter (description = "ID of the checking-in device", required = true)
+    @PathVariable Long id,
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Version the device is currently running", required = true)
+    @RequestBody CheckInRequestDto request) {
+        return ResponseEntity.ok().body(checkInService.checkIn(id, request));
+    }
+
+    @Operation(
+    summary = "Check a batch of devices for available updates",
+    description = "Checks every listed device in one request. Unknown devices are reported inline with an error instead of failing the batch")
+    @PostMapping("/check/batch")
+    public ResponseEntity<List<UpdateCheckResultDto>> checkDevicesForUpdates (
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "IDs of the devices to check", required = true)
+    @RequestBody List<Long> ids) {
+        return ResponseEntity.ok().body(updateService.checkUserDevicesForUpdate(ids));
+    }
+
     @Operation(
     summary = "Get devices by update type",
     description = "Gets all devices which AppVersions have specified UpdateType")
@@ -54,6 +99,38 @@ public class UpdateController {
         return ResponseEntity.notFound().build();
     }
 
+    @Operation(
+    summary = "Stream devices by update type",
+    description = "Streams all devices which AppVersions have specified UpdateType as newline-delimited JSON, one device per line")
+    @GetMapping(value = "/multiple/check/{type}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamDevicesByUpdate (
+    @Parameter(description = "Update Type (UNAVAILABLE, OPTIONAL, MANDATORY or DEPRECATED)", required = true)
+    @PathVariable String type) {
+        UpdateType updateType = updateService.parseUpdateType(type);
+        StreamingResponseBody body = outputStream -> updateService.streamDevicesWithUpdateType(updateType, updateData -> {
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(updateData));
+                outputStream.write('\n');
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @Operation(
+    summary = "Get page of devices by update type",
+    description = "Gets a page of devices which AppVersions have specified UpdateType, ordered by device ID")
+    @GetMapping("/multiple/check/{type}/page")
+    public ResponseEntity<Page<UpdateResponseDto>> getDevicesByUpdatePage (
+    @Parameter(description = "Update Type (UNAVAILABLE, OPTIONAL, MANDATORY or DEPRECATED)", required = true)
+    @PathVariable String type,
+    @PageableDefault (page = 0, size = 100)
+    Pageable pageable) {
+        return ResponseEntity.ok(updateService.getDevicesWithUpdateType(type, pageable));
+    }
+
     @Operation(
     summary = "Update specific device",
     description = "Updates a specific device to the latest app version for its platform")
@@ -66,9 +143,19 @@ public class UpdateController {
 
     @Operation(
     summary = "Update all outdated devices",
-    description = "Updates all devices that has an app version that is no longer supported or needs an mandatory update")
+    description = "Updates all devices that has an app version that is no longer supported or needs an mandatory update. " +
+    "Returns the number of updated devices per platform")
     @PutMapping("/multiple")
-    public ResponseEntity<List<UpdateResponseDto>> forceUpdate () {
+    public ResponseEntity<List<RolloutResultDto>> forceUpdate () {
         return ResponseEntity.ok().body(updateService.forceUpdateAllOutdated());
     }
+
+    @Operation(
+    summary = "Start background update of all outdated devices",
+    description = "Submits the update of all outdated devices as a background job and returns it immediately. " +
+    "Progress can be tracked through /api/jobs/{id}")
+    @PostMapping("/multiple/job")
+    public ResponseEntity<BackgroundJobResponseDto> forceUpdateJob () {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(jobRunner.submit(JobType.FORCE_UPDATE));
+    }
 }
@@ -5,10 +5,14 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.example.demo.dto.BackgroundJobResponseDto;
 import com.example.demo.dto.UploadResponseDto;
+import com.example.demo.enums.ImportMode;
+import com.example.demo.enums.JobType;
 import com.example.demo.service.UploadService;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 
@@ -27,23 +31,58 @@ public class UploadController {
 
     @Operation(
         summary = "Upload new App Versions",
-        description = "Receives file with new App Versions and adds the to database")
+        description = "Receives file with new App Versions and adds the to database. " +
+        "UPSERT mode also updates existing versions that changed")
     @PostMapping(value = "/appVersions",
     consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity <UploadResponseDto> uploadAppVersions(@RequestParam MultipartFile file) {
-        UploadResponseDto response = uploadService.importAppVersions(file);
+    public ResponseEntity <UploadResponseDto> uploadAppVersions(@RequestParam MultipartFile file,
+    @Parameter(description = "Import mode (BATCH or UPSERT)")
+    @RequestParam(defaultValue = "BATCH") ImportMode mode,
+    @Parameter(description = "Import the file again even if the same file was already imported")
+    @RequestParam(defaultValue = "false") boolean force) {
+        UploadResponseDto response = uploadService.importAppVersions(file, mode, force);
         if (response.failureCount() > 0) return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT).body(response);
         return ResponseEntity.ok(response);
     }
     
     @Operation(
         summary = "Upload new User Devices",
-        description = "Receives file with new User Devices and adds the to database")
+        description = "Receives file with new User Devices and adds the to database. " +
+        "COPY mode bulk-loads the whole file through PostgreSQL COPY and validates it in the database. " +
+        "It is all-or-nothing on CSV syntax: a malformed line rejects the whole file. " +
+        "UPSERT mode updates existing devices matched by the required id column, rows without an id are rejected")
     @PostMapping(value = "/userDevices",
     consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity <UploadResponseDto> uploadUserDevices(@RequestParam MultipartFile file) {
-        UploadResponseDto response = uploadService.importUserDevices(file);
+    public ResponseEntity <UploadResponseDto> uploadUserDevices(@RequestParam MultipartFile file,
+    @Parameter(description = "Import mode (BATCH, COPY or UPSERT)")
+    @RequestParam(defaultValue = "BATCH") ImportMode mode,
+    @Parameter(description = "Import the file again even if the same file was already imported")
+    @RequestParam(defaultValue = "false") boolean force) {
+        UploadResponseDto response = uploadService.importUserDevices(file, mode, force);
         if (response.failureCount() > 0) return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT).body(response);
         return ResponseEntity.ok(response);
     }
+
+    @Operation(
+        summary = "Upload new App Versions as a background job",
+        description = "Saves the file and imports it as a background job. Progress can be tracked through /api/jobs/{id}")
+    @PostMapping(value = "/appVersions/job",
+    consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity <BackgroundJobResponseDto> uploadAppVersionsJob(@RequestParam MultipartFile file,
+    @Parameter(description = "Import the file again even if the same file was already imported")
+    @RequestParam(defaultValue = "false") boolean force) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(uploadService.submitImportJob(file, JobType.IMPORT_APP_VERSIONS, force));
+    }
+
+    @Operation(
+        summary = "Upload new User Devices as a background job",
+        description = "Saves the file and imports it as a background job. Progress can be tracked through /api/jobs/{id}. " +
+        "An interrupted import resumes after the last committed row")
+    @PostMapping(value = "/userDevices/job",
+    consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity <BackgroundJobResponseDto> uploadUserDevicesJob(@RequestParam MultipartFile file,
+    @Parameter(description = "Import the file again even if the same file was already imported")
+    @RequestParam(defaultValue = "false") boolean force) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(uploadService.submitImportJob(file, JobType.IMPORT_USER_DEVICES, force));
+    }
 }
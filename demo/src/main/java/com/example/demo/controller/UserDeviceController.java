@@ -16,6 +16,7 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
 import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpHeaders;
@@ -108,6 +109,36 @@ public class UserDeviceController {
         return ResponseEntity.ok(userDeviceService.getOutdatedDevices(userId, platform));
     }
 
+    @Operation(
+        summary = "Get User Devices below a version",
+        description = "Finds devices of a platform whose current app version is ordered before the specified version")
+    @GetMapping("/userDevices/belowVersion")
+    public ResponseEntity<Page<UserDeviceResponseDto>> getBelowVersion(
+    @Parameter(description = "Platform type (ANDROID or IOS)", required = true)
+    @RequestParam(required = true) String platform,
+    @Parameter(description = "Upper bound version (exclusive)", example = "0.0.3a", required = true)
+    @RequestParam(required = true) String version,
+    @PageableDefault (page = 0, size = 100, sort = "id")
+    Pageable pageable) {
+        return ResponseEntity.ok(userDeviceService.getBelowVersion(platform, version, pageable));
+    }
+
+    @Operation(
+        summary = "Get User Devices between two versions",
+        description = "Finds devices of a platform whose current app version is ordered between the specified versions, both inclusive")
+    @GetMapping("/userDevices/betweenVersions")
+    public ResponseEntity<Page<UserDeviceResponseDto>> getBetweenVersions(
+    @Parameter(description = "Platform type (ANDROID or IOS)", required = true)
+    @RequestParam(required = true) String platform,
+    @Parameter(description = "Lower bound version", example = "0.0.2a", required = true)
+    @RequestParam(required = true) String from,
+    @Parameter(description = "Upper bound version", example = "0.0.4a", required = true)
+    @RequestParam(required = true) String to,
+    @PageableDefault (page = 0, size = 100, sort = "id")
+    Pageable pageable) {
+        return ResponseEntity.ok(userDeviceService.getBetweenVersions(platform, from, to, pageable));
+    }
+
     @Operation(
         summary = "Generate report for user's outdated devices",
         description = "Packs all user's outdated devices into single html file with all important information about them")
@@ -0,0 +1,25 @@
+package com.example.demo.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.example.demo.enums.JobStatus;
+import com.example.demo.enums.JobType;
+
+public record BackgroundJobResponseDto(Long id,
+    JobType type,
+    JobStatus status,
+    long processed,
+    long succeeded,
+    long failed,
+    Long checkpoint,
+    String payload,
+    LocalDateTime createdAt,
+    LocalDateTime startedAt,
+    LocalDateTime updatedAt,
+    LocalDateTime finishedAt,
+    Double rowsPerSecond,
+    String error,
+    List<String> rowErrors) {
+
+}
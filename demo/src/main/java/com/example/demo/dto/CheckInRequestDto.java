@@ -0,0 +1,5 @@
+package com.example.demo.dto;
+
+public record CheckInRequestDto(String currentVersion) {
+
+}
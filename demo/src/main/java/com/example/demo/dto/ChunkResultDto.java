@@ -0,0 +1,8 @@
+package com.example.demo.dto;
+
+public record ChunkResultDto(int processed,
+    int succeeded,
+    int failed,
+    Long lastId) {
+
+}
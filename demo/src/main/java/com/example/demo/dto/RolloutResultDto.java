@@ -0,0 +1,9 @@
+package com.example.demo.dto;
+
+import com.example.demo.enums.PlatformType;
+
+public record RolloutResultDto(PlatformType platform,
+    String latestVersion,
+    int updatedCount) {
+
+}
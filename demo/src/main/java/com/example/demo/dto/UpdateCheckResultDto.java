@@ -0,0 +1,7 @@
+package com.example.demo.dto;
+
+public record UpdateCheckResultDto(Long userDeviceId,
+    UpdateResponseDto update,
+    String error) {
+
+}
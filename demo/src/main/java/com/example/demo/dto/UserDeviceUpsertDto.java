@@ -0,0 +1,10 @@
+package com.example.demo.dto;
+
+import com.example.demo.enums.PlatformType;
+
+public record UserDeviceUpsertDto(Long id,
+    Long userId,
+    PlatformType platform,
+    String currentVersion) {
+
+}
@@ -0,0 +1,5 @@
+package com.example.demo.enums;
+
+public enum JobType {
+    FORCE_UPDATE, NOTIFY_OUTDATED, IMPORT_USER_DEVICES, IMPORT_APP_VERSIONS
+}
@@ -0,0 +1,41 @@
+package com.example.demo.exception;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import com.example.demo.controller.UpdateController;
+import com.example.demo.controller.UploadController;
+
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+
+// Scoped to the check-in and upload endpoints, which reject bad input with IllegalArgumentException.
+// Other controllers keep their existing error responses.
+@RestControllerAdvice(assignableTypes = {UpdateController.class, UploadController.class})
+public class ApiExceptionHandler {
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleIllegalArgument (IllegalArgumentException e, HttpServletRequest request) {
+        return error(HttpStatus.BAD_REQUEST, e.getMessage(), request);
+    }
+
+    @ExceptionHandler(EntityNotFoundException.class)
+    public ResponseEntity<Map<String, Object>> handleNotFound (EntityNotFoundException e, HttpServletRequest request) {
+        return error(HttpStatus.NOT_FOUND, e.getMessage(), request);
+    }
+
+    private ResponseEntity<Map<String, Object>> error (HttpStatus status, String message, HttpServletRequest request) {
+        Map <String, Object> body = new HashMap<>();
+        body.put("timestamp", LocalDateTime.now().toString());
+        body.put("status", status.value());
+        body.put("error", status.getReasonPhrase());
+        body.put("message", message);
+        body.put("details", request.getServletPath());
+        return ResponseEntity.status(status).body(body);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.demo.mapper;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.example.demo.dto.BackgroundJobResponseDto;
+import com.example.demo.model.BackgroundJob;
+
+public class BackgroundJobMapper {
+    public static BackgroundJobResponseDto backgroundJobToBackgroundJobResponseDto (BackgroundJob job) {
+        return new BackgroundJobResponseDto(job.getId(), job.getType(), job.getStatus(),
+        job.getProcessed(), job.getSucceeded(), job.getFailed(), job.getCheckpoint(), job.getPayload(),
+        job.getCreatedAt(), job.getStartedAt(), job.getUpdatedAt(), job.getFinishedAt(), rowsPerSecond(job), job.getError(),
+        job.getRowErrors() == null ? List.of() : List.of(job.getRowErrors().split("\n")));
+    }
+
+    private static Double rowsPerSecond (BackgroundJob job) {
+        if (job.getStartedAt() == null) return null;
+        LocalDateTime end = job.getFinishedAt() != null ? job.getFinishedAt() : LocalDateTime.now();
+        long millis = Duration.between(job.getStartedAt(), end).toMillis();
+        return millis > 0 ? job.getProcessed() * 1000.0 / millis : null;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.demo.mapper;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVRecord;
+
+import com.example.demo.dto.AppVersionRequestDto;
+import com.example.demo.dto.UserDeviceRequestDto;
+import com.example.demo.dto.UserDeviceUpsertDto;
+import com.example.demo.enums.PlatformType;
+import com.example.demo.enums.UpdateType;
+
+public class CsvRecordMapper {
+    public static final CSVFormat FORMAT =
+        CSVFormat.DEFAULT.builder().setHeader().setSkipHeaderRecord(true).setIgnoreHeaderCase(true).setTrim(true).get();
+
+    public static AppVersionRequestDto csvRecordToAppVersionRequestDto (CSVRecord record) {
+        return new AppVersionRequestDto(
+            record.get("version"),
+            parsePlatform(record.get("platform")),
+            parseUpdateType(record.get("updateType")),
+            Boolean.parseBoolean(record.get("active"))
+        );
+    }
+
+    public static UserDeviceRequestDto csvRecordToUserDeviceRequestDto (CSVRecord record) {
+        return new UserDeviceRequestDto(
+            parseUserId(record.get("userId")),
+            parsePlatform(record.get("platform")),
+            record.get("currentVersion")
+        );
+    }
+
+    // Devices are matched by id, so a row without one could only be inserted again on every sync
+    public static UserDeviceUpsertDto csvRecordToUserDeviceUpsertDto (CSVRecord record) {
+        String id = record.isMapped("id") ? record.get("id") : "";
+        if (id.isEmpty()) throw new IllegalArgumentException("Missing id, UPSERT mode only updates existing devices");
+        UserDeviceRequestDto device = csvRecordToUserDeviceRequestDto(record);
+        return new UserDeviceUpsertDto(parseId(id), device.userId(), device.platform(), device.currentVersion());
+    }
+
+    private static Long parseId (String id) {
+        try {return Long.parseLong(id);}
+        catch (NumberFormatException e) {throw new IllegalArgumentException("Invalid id: " + id);}
+    }
+
+    private static Long parseUserId (String userId) {
+        try {return Long.parseLong(userId);}
+        catch (NumberFormatException e) {throw new IllegalArgumentException("Invalid userId: " + userId);}
+    }
+
+    private static PlatformType parsePlatform (String platform) {
+        try {return PlatformType.valueOf(platform.toUpperCase());}
+        catch (IllegalArgumentException e) {throw new IllegalArgumentException("Invalid platform: " + platform);}
+    }
+
+    private static UpdateType parseUpdateType (String updateType) {
+        try {return UpdateType.valueOf(updateType);}
+        catch (IllegalArgumentException e) {throw new IllegalArgumentException("Invalid updateType: " + updateType);}
+    }
+}
@@ -12,6 +12,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -23,10 +24,13 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @Data
 @Entity
-@Table(indexes = @Index(name = "idx_app_version", columnList = "version", unique = true))
+@Table(indexes = {
+    @Index(name = "idx_app_version", columnList = "version", unique = true),
+    @Index(name = "idx_app_version_order", columnList = "platform, versionOrder")})
 public class AppVersion {
     @Id
-    @GeneratedValue (strategy = GenerationType.IDENTITY)
+    @GeneratedValue (strategy = GenerationType.SEQUENCE, generator = "app_version_id_seq")
+    @SequenceGenerator (name = "app_version_id_seq", sequenceName = "app_version_id_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank
@@ -34,6 +38,9 @@ public class AppVersion {
     @Column(nullable = false, length = 100, unique = true)
     private String version;
 
+    @Column(nullable = false)
+    private Long versionOrder;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 50)
     private PlatformType platform;
@@ -0,0 +1,67 @@
+package com.example.demo.model;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.CreationTimestamp;
+
+import com.example.demo.enums.JobStatus;
+import com.example.demo.enums.JobType;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table (indexes = @Index(name = "idx_job_status", columnList = "status"))
+public class BackgroundJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 50)
+    private JobType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 50)
+    private JobStatus status;
+
+    private long processed;
+
+    private long succeeded;
+
+    private long failed;
+
+    private Long checkpoint;
+
+    @Column(length = 500)
+    private String payload;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime finishedAt;
+
+    @Column(columnDefinition = "TEXT")
+    private String error;
+
+    // Newline separated, capped at jobs.max-stored-errors
+    @Column(columnDefinition = "TEXT")
+    private String rowErrors;
+}
@@ -18,7 +18,9 @@ import jakarta.persistence.Id;
 import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -28,13 +30,18 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Table (indexes = {
-    @Index(name = "idx_device_id", columnList = "deviceId"),
+@Table (uniqueConstraints = @UniqueConstraint(name = "uk_notification_dedup",
+    columnNames = {"device_id", "current_version", "latest_version", "update_type"}),
+indexes = {
     @Index(name = "idx_created_at", columnList = "createdAt"),
-    @Index(name = "idx_status", columnList = "status")})
+    @Index(name = "idx_status", columnList = "status"),
+    @Index(name = "idx_user_created_at", columnList = "userId, createdAt, id"),
+    @Index(name = "idx_device_created_at", columnList = "deviceId, createdAt, id"),
+    @Index(name = "idx_user_status_created_at", columnList = "userId, status, createdAt")})
 public class Notification {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue (strategy = GenerationType.SEQUENCE, generator = "notification_id_seq")
+    @SequenceGenerator (name = "notification_id_seq", sequenceName = "notification_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "device_id")
@@ -0,0 +1,62 @@
+package com.example.demo.model;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.CreationTimestamp;
+
+import com.example.demo.enums.ImportMode;
+import com.example.demo.enums.JobType;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table (indexes = {@Index(name = "idx_upload_record_hash", columnList = "sha256, type"),
+    @Index(name = "idx_upload_record_size", columnList = "fileSize, type")})
+public class UploadRecord {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 64)
+    private String sha256;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 50)
+    private JobType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 50)
+    private ImportMode mode;
+
+    private String filename;
+
+    private Long fileSize;
+
+    private Long jobId;
+
+    private int totalRows;
+
+    private int successCount;
+
+    private int failureCount;
+
+    @Column(columnDefinition = "TEXT")
+    private String errors;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+}
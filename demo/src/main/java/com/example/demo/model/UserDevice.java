@@ -5,6 +5,7 @@ import java.time.LocalDateTime;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import com.example.demo.enums.PlatformType;
+import com.example.demo.enums.UpdateType;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -14,8 +15,11 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -25,9 +29,13 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @Data
 @Entity
+@Table(indexes = {
+    @Index(name = "idx_user_device_version", columnList = "currentVersion, platform"),
+    @Index(name = "idx_user_device_status", columnList = "updateStatus, id")})
 public class UserDevice {
     @Id
-    @GeneratedValue (strategy = GenerationType.IDENTITY)
+    @GeneratedValue (strategy = GenerationType.SEQUENCE, generator = "user_device_id_seq")
+    @SequenceGenerator (name = "user_device_id_seq", sequenceName = "user_device_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "user_id", nullable = false)
@@ -51,4 +59,8 @@ public class UserDevice {
     @UpdateTimestamp
     @Column(nullable = false)
     private LocalDateTime lastSeen;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 50)
+    private UpdateType updateStatus;
 }
@@ -1,13 +1,21 @@
 package com.example.demo.repository;
 
 import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import com.example.demo.dto.AppVersionResponseDto;
 import com.example.demo.enums.PlatformType;
 import com.example.demo.enums.UpdateType;
 import com.example.demo.model.AppVersion;
 
+import jakarta.persistence.QueryHint;
+
 public interface AppVersionRepository extends 
     JpaRepository <AppVersion, Long>,
     JpaSpecificationExecutor <AppVersion> {
@@ -17,7 +25,16 @@ public interface AppVersionRepository extends
 
     List <AppVersion> findAllByUpdateType(UpdateType updateType);
     
-    AppVersion findFirstByPlatformAndActiveTrueOrderByReleaseDateDesc(PlatformType platform);
+    AppVersion findFirstByPlatformAndActiveTrueOrderByVersionOrderDesc(PlatformType platform);
 
     AppVersion findFirstByVersionAndPlatform(String version, PlatformType platform);
+
+    List <AppVersion> findAllByPlatformAndVersionOrderLessThanOrderByVersionOrderAsc(PlatformType platform, Long versionOrder);
+
+    List <AppVersion> findAllByPlatformAndVersionOrderBetweenOrderByVersionOrderAsc(PlatformType platform, Long fromOrder, Long toOrder);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.example.demo.dto.AppVersionResponseDto(v.id, v.version, v.platform, v.releaseDate, v.changelog, " +
+        "v.updateType, v.active) FROM AppVersion v ORDER BY v.id")
+    Stream <AppVersionResponseDto> streamAllForExport();
 }
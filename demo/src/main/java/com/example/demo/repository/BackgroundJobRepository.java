@@ -0,0 +1,36 @@
+package com.example.demo.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.example.demo.enums.JobStatus;
+import com.example.demo.model.BackgroundJob;
+
+@Repository
+public interface BackgroundJobRepository extends JpaRepository <BackgroundJob, Long> {
+    List <BackgroundJob> findAllByStatusInOrderById(Collection<JobStatus> statuses);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE BackgroundJob j SET j.processed = j.processed + :processed, j.succeeded = j.succeeded + :succeeded, " +
+        "j.failed = j.failed + :failed, j.checkpoint = :checkpoint, j.updatedAt = :now WHERE j.id = :id")
+    int addProgress(Long id, long processed, long succeeded, long failed, Long checkpoint, LocalDateTime now);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE background_job SET row_errors = concat_ws(E'\\n', row_errors, :errors) WHERE id = :id", nativeQuery = true)
+    int appendRowErrors(Long id, String errors);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE BackgroundJob j SET j.status = :status, j.error = :error, j.updatedAt = :now, j.finishedAt = :finishedAt " +
+        "WHERE j.id = :id AND j.status IN :expected")
+    int updateStatus(Long id, Collection<JobStatus> expected, JobStatus status, String error, LocalDateTime now, LocalDateTime finishedAt);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE BackgroundJob j SET j.startedAt = :now WHERE j.id = :id AND j.startedAt IS NULL")
+    int markStarted(Long id, LocalDateTime now);
+}
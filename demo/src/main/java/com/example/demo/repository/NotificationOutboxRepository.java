@@ -0,0 +1,29 @@
+package com.example.demo.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.example.demo.enums.OutboxStatus;
+import com.example.demo.model.NotificationOutbox;
+
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository <NotificationOutbox, Long> {
+    // Rows locked by another dispatcher are skipped instead of waited for. PROCESSING rows whose
+    // lease ran out belong to a dispatcher that died before recording the result.
+    @Query(value = "SELECT * FROM notification_outbox " +
+        "WHERE (status = 'PENDING' AND next_attempt_at <= :now) OR (status = 'PROCESSING' AND locked_until < :now) " +
+        "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List <NotificationOutbox> findDueForUpdate(LocalDateTime now, int limit);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE NotificationOutbox o SET o.status = :status, o.attempts = :attempts, o.nextAttemptAt = :nextAttemptAt, " +
+        "o.lockedUntil = null, o.lastError = :error WHERE o.id = :id")
+    int reschedule(Long id, OutboxStatus status, int attempts, LocalDateTime nextAttemptAt, String error);
+
+    long countByStatus(OutboxStatus status);
+}
@@ -1,26 +1,65 @@
 package com.example.demo.repository;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import com.example.demo.dto.NotificationResponseDto;
 import com.example.demo.enums.NotificationType;
-import com.example.demo.enums.UpdateType;
 import com.example.demo.model.Notification;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 
 
 @Repository
 public interface NotificationRepository extends JpaRepository <Notification, Long> {
-    List <Notification> findByDeviceIdOrderByCreatedAtDesc (Long deviceId);
+    // Keyset pages, newest first. The "Before" queries continue after the last row of the previous page.
+    // The row-value comparison lets PostgreSQL seek straight to the cursor in the (..., created_at, id) indexes.
+    String BEFORE_CURSOR = "AND (n.createdAt, n.id) < (:createdAt, :id) ";
+    String NEWEST_FIRST = "ORDER BY n.createdAt DESC, n.id DESC";
+
+    List <Notification> findByDeviceIdOrderByCreatedAtDescIdDesc(Long deviceId, Limit limit);
+
+    @Query("SELECT n FROM Notification n WHERE n.deviceId = :deviceId " + BEFORE_CURSOR + NEWEST_FIRST)
+    List <Notification> findByDeviceIdBefore(Long deviceId, LocalDateTime createdAt, Long id, Limit limit);
+
+    List <Notification> findByUserIdOrderByCreatedAtDescIdDesc(Long userId, Limit limit);
+
+    @Query("SELECT n FROM Notification n WHERE n.userId = :userId " + BEFORE_CURSOR + NEWEST_FIRST)
+    List <Notification> findByUserIdBefore(Long userId, LocalDateTime createdAt, Long id, Limit limit);
 
-    List<Notification> findByUserIdOrderByCreatedAtDesc(Long userId);
-    
-    List<Notification> findByUserIdAndStatus(Long userId, NotificationType status);
+    List <Notification> findByUserIdAndStatusInOrderByCreatedAtDescIdDesc(Long userId, Collection<NotificationType> statuses, Limit limit);
+
+    @Query("SELECT n FROM Notification n WHERE n.userId = :userId AND n.status IN :statuses " + BEFORE_CURSOR + NEWEST_FIRST)
+    List <Notification> findByUserIdAndStatusInBefore(Long userId, Collection<NotificationType> statuses,
+        LocalDateTime createdAt, Long id, Limit limit);
 
     List<Notification> findByStatusAndCreatedAtBefore(NotificationType status, LocalDateTime date);
 
-    boolean existsByDeviceIdAndCurrentVersionAndLatestVersionAndUpdateType(
-    Long deviceId, String currentVersion, String latestVersion, UpdateType updateType);
+    long countByUserIdAndStatusIn(Long userId, Collection<NotificationType> statuses);
+
+    // Serializes status changes of one notification, so the unread counter is changed exactly once
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional <Notification> findForUpdateById(Long id);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Notification n SET n.status = :status WHERE n.id = :id AND n.status = :expected")
+    int updateStatus(Long id, NotificationType expected, NotificationType status);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.example.demo.dto.NotificationResponseDto(n.id, n.deviceId, n.userId, n.currentVersion, n.latestVersion, " +
+        "n.updateType, n.status, n.createdAt, n.readAt, n.message) FROM Notification n ORDER BY n.id")
+    Stream <NotificationResponseDto> streamAllForExport();
 }
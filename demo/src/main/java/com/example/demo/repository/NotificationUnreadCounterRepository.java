@@ -0,0 +1,40 @@
+package com.example.demo.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.example.demo.model.NotificationUnreadCounter;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface NotificationUnreadCounterRepository extends JpaRepository <NotificationUnreadCounter, Long> {
+    @Modifying
+    @Query(value = "INSERT INTO notification_unread_counter (user_id, unread_count) VALUES (:userId, :delta) " +
+        "ON CONFLICT (user_id) DO UPDATE SET unread_count = notification_unread_counter.unread_count + :delta",
+        nativeQuery = true)
+    int add(Long userId, long delta);
+
+    @Modifying
+    @Query(value = "INSERT INTO notification_unread_counter (user_id, unread_count) VALUES (:userId, 0) ON CONFLICT (user_id) DO NOTHING",
+        nativeQuery = true)
+    int createIfAbsent(Long userId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional <NotificationUnreadCounter> findForUpdateByUserId(Long userId);
+
+    // Users whose counter differs from the actual number of PENDING and SENT notifications. Read without
+    // locks, so the result only names candidates that have to be recounted under the counter's lock.
+    @Query(value = "SELECT COALESCE(a.user_id, c.user_id) " +
+        "FROM (SELECT user_id, COUNT(*) AS unread_count FROM notification WHERE status IN ('PENDING', 'SENT') GROUP BY user_id) a " +
+        "FULL JOIN notification_unread_counter c ON c.user_id = a.user_id " +
+        "WHERE c.user_id IS NULL OR c.unread_count <> COALESCE(a.unread_count, 0)",
+        nativeQuery = true)
+    List <Long> findDriftedUserIds();
+}
@@ -0,0 +1,20 @@
+package com.example.demo.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.example.demo.enums.ImportMode;
+import com.example.demo.enums.JobType;
+import com.example.demo.model.UploadRecord;
+
+@Repository
+public interface UploadRecordRepository extends JpaRepository <UploadRecord, Long> {
+    Optional <UploadRecord> findFirstBySha256AndTypeAndModeAndFailureCountAndJobIdIsNullOrderByIdDesc(String sha256, JobType type,
+        ImportMode mode, int failureCount);
+
+    boolean existsByFileSizeAndTypeAndModeAndFailureCountAndJobIdIsNull(Long fileSize, JobType type, ImportMode mode, int failureCount);
+
+    Optional <UploadRecord> findFirstBySha256AndTypeAndJobIdIsNotNullOrderByIdDesc(String sha256, JobType type);
+}
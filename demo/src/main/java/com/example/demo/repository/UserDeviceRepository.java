@@ -1,14 +1,29 @@
 package com.example.demo.repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import com.example.demo.dto.UserDeviceResponseDto;
 import com.example.demo.enums.PlatformType;
+import com.example.demo.enums.UpdateType;
 import com.example.demo.model.UserDevice;
+import com.example.demo.repository.projection.DeviceUpdateStatus;
 import com.example.demo.repository.projection.VersionDistribution;
 
+import jakarta.persistence.QueryHint;
+
 public interface UserDeviceRepository extends 
     JpaRepository <UserDevice, Long>,
     JpaSpecificationExecutor <UserDevice> {
@@ -21,4 +36,41 @@ public interface UserDeviceRepository extends
     @Query("SELECT d.currentVersion as version, d.platform as platform, COUNT(d) as usersCount FROM UserDevice d " + 
         "GROUP BY d.currentVersion, d.platform")
     List <VersionDistribution> getVersionDistrib();
+
+    String UPDATE_STATUS_SELECT = "SELECT d.id as deviceId, d.userId as userId, d.platform as platform, " +
+        "d.currentVersion as currentVersion, d.updateStatus as updateType FROM UserDevice d ";
+
+    @Query(UPDATE_STATUS_SELECT + "WHERE d.updateStatus = :updateStatus AND d.platform IN :platforms ORDER BY d.id")
+    Page <DeviceUpdateStatus> findUpdateStatusByUpdateStatus(UpdateType updateStatus, Collection<PlatformType> platforms, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(UPDATE_STATUS_SELECT + "WHERE d.updateStatus = :updateStatus AND d.platform IN :platforms ORDER BY d.id")
+    Stream <DeviceUpdateStatus> streamUpdateStatusByUpdateStatus(UpdateType updateStatus, Collection<PlatformType> platforms);
+
+    @Query(UPDATE_STATUS_SELECT + "WHERE d.updateStatus IN :updateStatuses AND d.platform IN :platforms AND d.id > :afterId ORDER BY d.id")
+    List <DeviceUpdateStatus> findUpdateStatusByUpdateStatusAfter(Collection<UpdateType> updateStatuses, Collection<PlatformType> platforms,
+        Long afterId, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.example.demo.dto.UserDeviceResponseDto(d.id, d.userId, d.platform, d.currentVersion, d.lastSeen) " +
+        "FROM UserDevice d ORDER BY d.id")
+    Stream <UserDeviceResponseDto> streamAllForExport();
+
+    @Query("SELECT d FROM UserDevice d JOIN AppVersion v ON v.version = d.currentVersion AND v.platform = d.platform " +
+        "WHERE d.platform = :platform AND v.versionOrder < :versionOrder")
+    Page <UserDevice> findAllByPlatformBelowVersion(PlatformType platform, Long versionOrder, Pageable pageable);
+
+    @Query("SELECT d FROM UserDevice d JOIN AppVersion v ON v.version = d.currentVersion AND v.platform = d.platform " +
+        "WHERE d.platform = :platform AND v.versionOrder BETWEEN :fromOrder AND :toOrder")
+    Page <UserDevice> findAllByPlatformBetweenVersions(PlatformType platform, Long fromOrder, Long toOrder, Pageable pageable);
+
+    @Query("SELECT d FROM UserDevice d JOIN AppVersion v ON v.version = d.currentVersion AND v.platform = d.platform " +
+        "WHERE d.userId = :userId AND d.platform = :platform AND v.versionOrder < :versionOrder")
+    List <UserDevice> findAllByUserIdAndPlatformBelowVersion(Long userId, PlatformType platform, Long versionOrder);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE UserDevice d SET d.updateStatus = " +
+        "(SELECT v.updateType FROM AppVersion v WHERE v.version = d.currentVersion AND v.platform = d.platform) " +
+        "WHERE d.currentVersion IN :versions")
+    int recomputeUpdateStatusByVersionIn(Collection<String> versions);
 }
@@ -1,13 +1,23 @@
 package com.example.demo.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.example.demo.model.User;
+import com.example.demo.repository.projection.UserChatId;
 
 @Repository
 public interface UserRepository extends JpaRepository <User, Long>{
     Optional <User> findByUsername (String username);
+
+    @Query("SELECT u.id FROM User u")
+    List <Long> findAllIds ();
+
+    @Query("SELECT u.id as userId, u.telegramChatId as telegramChatId FROM User u WHERE u.id IN :ids")
+    List <UserChatId> findChatIdsByIdIn (Collection<Long> ids);
 }
@@ -0,0 +1,12 @@
+package com.example.demo.repository.projection;
+
+import com.example.demo.enums.PlatformType;
+import com.example.demo.enums.UpdateType;
+
+public interface DeviceUpdateStatus {
+    Long getDeviceId();
+    Long getUserId();
+    PlatformType getPlatform();
+    String getCurrentVersion();
+    UpdateType getUpdateType();
+}
@@ -0,0 +1,100 @@
+package com.example.demo.service;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.demo.dto.AppVersionResponseDto;
+import com.example.demo.enums.PlatformType;
+import com.example.demo.mapper.AppVersionMapper;
+import com.example.demo.model.AppVersion;
+import com.example.demo.repository.AppVersionRepository;
+
+import lombok.RequiredArgsConstructor;
+
+@Service
+@RequiredArgsConstructor
+public class AppVersionCatalog {
+    private final AppVersionRepository appVersionRepository;
+    private static final Logger logger = LoggerFactory.getLogger(AppVersionCatalog.class);
+
+    private static final Comparator<AppVersion> VERSION_ORDER = Comparator
+        .comparing(AppVersion::getVersionOrder).thenComparing(AppVersion::getId);
+
+    private volatile Snapshot snapshot;
+
+    private record Snapshot(Map<PlatformType, Map<String, AppVersionResponseDto>> versions,
+        Map<PlatformType, AppVersionResponseDto> latest) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void refresh() {
+        List <AppVersion> appVersions = appVersionRepository.findAll();
+
+        Map <PlatformType, Map<String, AppVersionResponseDto>> versions = new EnumMap<>(PlatformType.class);
+        Map <PlatformType, AppVersion> latest = new EnumMap<>(PlatformType.class);
+        for (AppVersion appVersion : appVersions) {
+            versions.computeIfAbsent(appVersion.getPlatform(), p -> new HashMap<>())
+                .put(appVersion.getVersion(), AppVersionMapper.appVersionToAppVersionResponseDto(appVersion));
+            if (appVersion.isActive()) latest.merge(appVersion.getPlatform(), appVersion,
+                (a, b) -> VERSION_ORDER.compare(a, b) >= 0 ? a : b);
+        }
+        versions.replaceAll((platform, byVersion) -> Map.copyOf(byVersion));
+
+        Map <PlatformType, AppVersionResponseDto> latestByPlatform = new EnumMap<>(PlatformType.class);
+        latest.forEach((platform, appVersion) -> latestByPlatform.put(platform, versions.get(platform).get(appVersion.getVersion())));
+
+        snapshot = new Snapshot(Map.copyOf(versions), Map.copyOf(latestByPlatform));
+        logger.info("Rebuilt AppVersion catalog. Total count: {}", appVersions.size());
+    }
+
+    public void refreshAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refresh();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                refresh();
+            }
+        });
+    }
+
+    public Optional<AppVersionResponseDto> find(String version, PlatformType platform) {
+        Map <String, AppVersionResponseDto> byVersion = current().versions().get(platform);
+        return byVersion == null ? Optional.empty() : Optional.ofNullable(byVersion.get(version));
+    }
+
+    public boolean containsVersion(String version) {
+        return current().versions().values().stream().anyMatch(byVersion -> byVersion.containsKey(version));
+    }
+
+    public Optional<AppVersionResponseDto> findLatest(PlatformType platform) {
+        return Optional.ofNullable(current().latest().get(platform));
+    }
+
+    public Map<PlatformType, AppVersionResponseDto> findAllLatest() {
+        return current().latest();
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            refresh();
+            current = snapshot;
+        }
+        return current;
+    }
+}
@@ -3,6 +3,7 @@ package com.example.demo.service;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,6 +12,7 @@ import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,10 +21,13 @@ import lombok.RequiredArgsConstructor;
 import com.example.demo.dto.AppVersionRequestDto;
 import com.example.demo.dto.AppVersionResponseDto;
 import com.example.demo.enums.PlatformType;
+import com.example.demo.enums.UpdateType;
 import com.example.demo.mapper.AppVersionMapper;
 import com.example.demo.model.AppVersion;
 import com.example.demo.repository.AppVersionRepository;
+import com.example.demo.repository.UserDeviceRepository;
 import com.example.demo.specifications.AppVersionSpecifications;
+import com.example.demo.util.VersionOrder;
 
 import jakarta.persistence.EntityNotFoundException;
 
@@ -33,6 +38,9 @@ public class AppVersionService {
     private static final Logger logger = LoggerFactory.getLogger(AppVersionService.class);
     
     private final AppVersionRepository appVersionRepository;
+    private final AppVersionCatalog appVersionCatalog;
+    private final UserDeviceRepository userDeviceRepository;
+    private final JdbcTemplate jdbcTemplate;
 
     //CRUD
 
@@ -54,12 +62,59 @@ public class AppVersionService {
     public AppVersionResponseDto create (AppVersionRequestDto request) {
         logger.info("Creating new AppVersion: {} for platform: {}", request.version(), request.platform());
         
-        AppVersion newAppVersion = appVersionRepository.save(new AppVersion(null, request.version(), request.platform(),
-        null, LocalDateTime.now().toString() + ": created", request.updateType(), request.active()));
+        AppVersion newAppVersion = appVersionRepository.save(new AppVersion(null, request.version(), VersionOrder.of(request.version()), request.platform(),
+        LocalDateTime.now(), LocalDateTime.now().toString() + ": created", request.updateType(), request.active()));
+        recomputeDeviceStatuses(List.of(newAppVersion.getVersion()));
+        appVersionCatalog.refreshAfterCommit();
         logger.info("Successfully created AppVersion with ID: {} for platform: {}", newAppVersion.getId(), request.platform());
         return AppVersionMapper.appVersionToAppVersionResponseDto(newAppVersion);
     }
 
+    @CacheEvict (value = "appVersions", allEntries = true)
+    @Transactional
+    public int createAll (List<AppVersionRequestDto> requests) {
+        List <AppVersion> newAppVersions = new ArrayList<>();
+        for (AppVersionRequestDto request : requests) {
+            newAppVersions.add(new AppVersion(null, request.version(), VersionOrder.of(request.version()), request.platform(),
+            LocalDateTime.now(), LocalDateTime.now().toString() + ": created", request.updateType(), request.active()));
+        }
+        appVersionRepository.saveAll(newAppVersions);
+        recomputeDeviceStatuses(newAppVersions.stream().map(AppVersion::getVersion).toList());
+        appVersionCatalog.refreshAfterCommit();
+        logger.info("Successfully created {} AppVersions in batch", newAppVersions.size());
+        return newAppVersions.size();
+    }
+
+    // One INSERT ... ON CONFLICT per batch. Existing versions are only updated
+    // when something changed, so re-importing the same file writes nothing.
+    @CacheEvict (value = {"appVersions", "appVersion"}, allEntries = true)
+    @Transactional
+    public int upsertAll (List<AppVersionRequestDto> requests) {
+        String now = LocalDateTime.now().toString();
+        List <String> changedVersions = jdbcTemplate.queryForList(
+            "INSERT INTO app_version (id, version, version_order, platform, release_date, changelog, update_type, active) " +
+            "SELECT nextval('app_version_id_seq'), u.version, u.version_order, u.platform, LOCALTIMESTAMP, ?, u.update_type, u.active " +
+            "FROM unnest(?::text[], ?::bigint[], ?::text[], ?::text[], ?::boolean[]) AS u(version, version_order, platform, update_type, active) " +
+            "ON CONFLICT (version) DO UPDATE SET version_order = EXCLUDED.version_order, platform = EXCLUDED.platform, " +
+            "update_type = EXCLUDED.update_type, active = EXCLUDED.active, changelog = ? || app_version.changelog " +
+            "WHERE (app_version.platform, app_version.update_type, app_version.active) IS DISTINCT FROM " +
+            "(EXCLUDED.platform, EXCLUDED.update_type, EXCLUDED.active) RETURNING version", String.class,
+            now + ": created",
+            requests.stream().map(AppVersionRequestDto::version).toArray(String[]::new),
+            requests.stream().map(request -> VersionOrder.of(request.version())).toArray(Long[]::new),
+            requests.stream().map(request -> request.platform().name()).toArray(String[]::new),
+            requests.stream().map(request -> request.updateType().name()).toArray(String[]::new),
+            requests.stream().map(AppVersionRequestDto::active).toArray(Boolean[]::new),
+            now + ": updated | ");
+
+        if (!changedVersions.isEmpty()) {
+            recomputeDeviceStatuses(changedVersions);
+            appVersionCatalog.refreshAfterCommit();
+        }
+        logger.info("Upserted {} AppVersions in batch. Inserted or changed: {}", requests.size(), changedVersions.size());
+        return requests.size();
+    }
+
     @Cacheable (value = "appVersion", key = "#id")
     public AppVersionResponseDto getById(Long id) {
         AppVersion appVersion = appVersionRepository.findById(id).orElse(null);
@@ -80,13 +135,17 @@ public class AppVersionService {
         AppVersion updated = appVersionRepository.findById(id).map(existingAppVersion -> {
             logger.debug("Values before update - version: {}, platform: {}, active: {}", 
                         existingAppVersion.getVersion(), existingAppVersion.getPlatform(), existingAppVersion.isActive());
+            String previousVersion = existingAppVersion.getVersion();
             existingAppVersion.setVersion(request.version());
+            existingAppVersion.setVersionOrder(VersionOrder.of(request.version()));
             existingAppVersion.setPlatform(request.platform());
             existingAppVersion.setChangelog(LocalDateTime.now().toString() + ": updated | " + existingAppVersion.getChangelog());
             existingAppVersion.setUpdateType(request.updateType());
             existingAppVersion.setActive(request.active());
             
             AppVersion savedVersion = appVersionRepository.save(existingAppVersion);
+            recomputeDeviceStatuses(List.of(previousVersion, savedVersion.getVersion()));
+            appVersionCatalog.refreshAfterCommit();
             logger.info("Successfully updated AppVersion with ID: {}", id);
             return savedVersion;
         }).orElse(null);
@@ -103,8 +162,11 @@ public class AppVersionService {
     })
     @Transactional
     public boolean deleteById(Long id) {
-        if (appVersionRepository.existsById(id)) {
-            appVersionRepository.deleteById(id);
+        AppVersion appVersion = appVersionRepository.findById(id).orElse(null);
+        if (appVersion != null) {
+            appVersionRepository.delete(appVersion);
+            recomputeDeviceStatuses(List.of(appVersion.getVersion()));
+            appVersionCatalog.refreshAfterCommit();
             logger.info("Successfully deleted AppVersion with ID: {}", id);
             return true;
         }
@@ -112,29 +174,38 @@ public class AppVersionService {
     }
 
     public AppVersionResponseDto getByVersionAndPlatform(String version, PlatformType platformType) {
-        AppVersion appVersion = appVersionRepository.findFirstByVersionAndPlatform(version, platformType);
-        if (appVersion != null) {
-            logger.info("Found exact same AppVersion in database: {}", version);
-            return AppVersionMapper.appVersionToAppVersionResponseDto(appVersion);
-        }
-        throw new EntityNotFoundException("There's no AppVersion with version: " + version);
+        return appVersionCatalog.find(version, platformType).orElseThrow(
+            () -> new EntityNotFoundException("There's no AppVersion with version: " + version));
     }
 
     //LOGIC
 
-    @Cacheable (value = "latestAppVersion", key = "#platform")
+    public UpdateType getUpdateType(String version, PlatformType platformType) {
+        return appVersionCatalog.find(version, platformType).map(AppVersionResponseDto::updateType).orElse(null);
+    }
+
+    public Map<PlatformType, AppVersionResponseDto> getLatestVersions() {
+        return appVersionCatalog.findAllLatest();
+    }
+
     public AppVersionResponseDto getLatestVersion(String platform) {
-        PlatformType platformType;
-        try {platformType = PlatformType.valueOf(platform.toUpperCase());}
-        catch (IllegalArgumentException e) {throw new IllegalArgumentException("Invalid platform type provided. Must be one of the valid PlatformType enum values.");}
-        
-        AppVersion latest = appVersionRepository.findFirstByPlatformAndActiveTrueOrderByReleaseDateDesc(platformType);
-        if (latest != null) {
-            logger.info("Found latest AppVersion for platform {}: version {} released on {}", 
-                       platformType, latest.getVersion(), latest.getReleaseDate());
-            return AppVersionMapper.appVersionToAppVersionResponseDto(latest);
-        }
-        throw new EntityNotFoundException("There's no AppVersion with platform: " + platform);
+        PlatformType platformType = parsePlatform(platform);
+        return appVersionCatalog.findLatest(platformType).orElseThrow(
+            () -> new EntityNotFoundException("There's no AppVersion with platform: " + platform));
+    }
+
+    public List<AppVersionResponseDto> getBelowVersion(String platform, String version) {
+        List <AppVersion> appVersions = appVersionRepository.findAllByPlatformAndVersionOrderLessThanOrderByVersionOrderAsc(
+            parsePlatform(platform), VersionOrder.of(version));
+        logger.info("Found {} AppVersions below {} for platform {}", appVersions.size(), version, platform);
+        return appVersions.stream().map(AppVersionMapper::appVersionToAppVersionResponseDto).toList();
+    }
+
+    public List<AppVersionResponseDto> getBetweenVersions(String platform, String from, String to) {
+        List <AppVersion> appVersions = appVersionRepository.findAllByPlatformAndVersionOrderBetweenOrderByVersionOrderAsc(
+            parsePlatform(platform), VersionOrder.of(from), VersionOrder.of(to));
+        logger.info("Found {} AppVersions between {} and {} for platform {}", appVersions.size(), from, to, platform);
+        return appVersions.stream().map(AppVersionMapper::appVersionToAppVersionResponseDto).toList();
     }
 
     public Page<AppVersion> getByFilter (String version, Pageable pageable) {
@@ -142,4 +213,14 @@ public class AppVersionService {
         logger.info("Successfully filtered AppVersions. Found {} results", result.getNumberOfElements());
         return result;
     }
+
+    private void recomputeDeviceStatuses(List<String> versions) {
+        int updated = userDeviceRepository.recomputeUpdateStatusByVersionIn(versions);
+        logger.info("Recomputed update status of {} UserDevices on versions {}", updated, versions);
+    }
+
+    private PlatformType parsePlatform(String platform) {
+        try {return PlatformType.valueOf(platform.toUpperCase());}
+        catch (IllegalArgumentException e) {throw new IllegalArgumentException("Invalid platform type provided. Must be one of the valid PlatformType enum values.");}
+    }
 }
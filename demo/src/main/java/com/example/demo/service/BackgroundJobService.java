@@ -0,0 +1,116 @@
+package com.example.demo.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.dto.BackgroundJobResponseDto;
+import com.example.demo.dto.ChunkResultDto;
+import com.example.demo.enums.JobStatus;
+import com.example.demo.enums.JobType;
+import com.example.demo.mapper.BackgroundJobMapper;
+import com.example.demo.model.BackgroundJob;
+import com.example.demo.repository.BackgroundJobRepository;
+
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+
+@Service
+@RequiredArgsConstructor
+@Transactional (readOnly = true)
+public class BackgroundJobService {
+    private final BackgroundJobRepository backgroundJobRepository;
+    private static final Logger logger = LoggerFactory.getLogger(BackgroundJobService.class);
+
+    private static final Set<JobStatus> UNFINISHED = Set.of(JobStatus.QUEUED, JobStatus.RUNNING);
+
+    @Value("${jobs.max-stored-errors}")
+    private int maxStoredErrors;
+
+    @Transactional
+    public BackgroundJobResponseDto create (JobType type, String payload) {
+        BackgroundJob job = backgroundJobRepository.save(new BackgroundJob(null, type, JobStatus.QUEUED,
+        0, 0, 0, null, payload, null, null, LocalDateTime.now(), null, null, null));
+        logger.info("Created {} job with ID: {}", type, job.getId());
+        return BackgroundJobMapper.backgroundJobToBackgroundJobResponseDto(job);
+    }
+
+    public BackgroundJobResponseDto getById (Long id) {
+        return BackgroundJobMapper.backgroundJobToBackgroundJobResponseDto(findJob(id));
+    }
+
+    public List<BackgroundJobResponseDto> getUnfinished () {
+        return backgroundJobRepository.findAllByStatusInOrderById(UNFINISHED).stream()
+            .map(BackgroundJobMapper::backgroundJobToBackgroundJobResponseDto).toList();
+    }
+
+    @Transactional
+    public BackgroundJobResponseDto cancel (Long id) {
+        findJob(id);
+        LocalDateTime now = LocalDateTime.now();
+        if (backgroundJobRepository.updateStatus(id, UNFINISHED, JobStatus.CANCELLED, null, now, now) > 0) {
+            logger.info("Cancelled job with ID: {}", id);
+        }
+        return BackgroundJobMapper.backgroundJobToBackgroundJobResponseDto(findJob(id));
+    }
+
+    @Transactional
+    public boolean markRunning (Long id) {
+        LocalDateTime now = LocalDateTime.now();
+        if (backgroundJobRepository.updateStatus(id, UNFINISHED, JobStatus.RUNNING, null, now, null) == 0) return false;
+        backgroundJobRepository.markStarted(id, now);
+        return true;
+    }
+
+    @Transactional
+    public void markFinished (Long id, JobStatus status, String error) {
+        LocalDateTime now = LocalDateTime.now();
+        backgroundJobRepository.updateStatus(id, Set.of(JobStatus.RUNNING), status, error, now, now);
+        logger.info("Job {} finished with status {}", id, status);
+    }
+
+    // Runs one step of the job and records its progress in the same transaction,
+    // so a restarted job continues right after the last committed chunk.
+    @Transactional
+    public ChunkResultDto commitChunk (Long id, Function<Long, ChunkResultDto> step) {
+        BackgroundJob job = findJob(id);
+        if (job.getStatus() != JobStatus.RUNNING) return null;
+
+        ChunkResultDto result = step.apply(job.getCheckpoint());
+        if (result.lastId() != null) {
+            backgroundJobRepository.addProgress(id, result.processed(), result.succeeded(), result.failed(),
+                result.lastId(), LocalDateTime.now());
+        }
+        return result;
+    }
+
+    // Runs a write and records its progress and row errors in the same transaction. Returns false
+    // without writing anything once the job is no longer running.
+    @Transactional
+    public boolean commitProgress (Long id, Runnable write, long processed, long succeeded, long failed, Long checkpoint,
+        List<String> rowErrors) {
+        BackgroundJob job = findJob(id);
+        if (job.getStatus() != JobStatus.RUNNING) return false;
+
+        write.run();
+        backgroundJobRepository.addProgress(id, processed, succeeded, failed, checkpoint, LocalDateTime.now());
+        // Each failed row reports one error, so the failed count so far is the number of stored errors
+        long room = maxStoredErrors - job.getFailed();
+        if (room > 0 && !rowErrors.isEmpty()) {
+            backgroundJobRepository.appendRowErrors(id, String.join("\n", rowErrors.subList(0, (int) Math.min(room, rowErrors.size()))));
+        }
+        return true;
+    }
+
+    private BackgroundJob findJob (Long id) {
+        return backgroundJobRepository.findById(id).orElseThrow(
+            () -> new EntityNotFoundException("There's no job with ID: " + id));
+    }
+}
@@ -1,5 +1,13 @@
 package com.example.demo.service;
 
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -8,8 +16,10 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
 import org.telegram.telegrambots.bots.TelegramLongPollingBot;
 import org.telegram.telegrambots.meta.api.methods.AnswerCallbackQuery;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
 import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
@@ -18,6 +28,8 @@ import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMa
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import jakarta.persistence.EntityNotFoundException;
 
 @Service
@@ -27,6 +39,9 @@ public class BotService extends TelegramLongPollingBot{
     private static final Logger logger = LoggerFactory.getLogger(BotService.class);
     private final String botName;
     private final Long adminChatID;
+    private static final Duration API_TIMEOUT = Duration.ofSeconds(30);
+    private final HttpClient apiClient = HttpClient.newBuilder().connectTimeout(API_TIMEOUT).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
 
     public BotService (
     @Value("${telegram.bot.name}")
@@ -35,15 +50,23 @@ public class BotService extends TelegramLongPollingBot{
     String botToken,
     @Value("${telegram.bot.chat-id}")
     Long adminChatID,
+    @Value("${telegram.bot.base-url}")
+    String baseUrl,
     @Lazy NotificationService notificationService,
     @Lazy UserService userService) {
-        super(botToken);
+        super(botOptions(baseUrl), botToken);
         this.botName = botName;
         this.adminChatID = adminChatID;
         this.notificationService = notificationService;
         this.userService = userService;
     }
-    
+
+
+    private static DefaultBotOptions botOptions (String baseUrl) {
+        DefaultBotOptions options = new DefaultBotOptions();
+        options.setBaseUrl(baseUrl);
+        return options;
+    }
 
     @Override
     public String getBotUsername() {
@@ -130,7 +153,29 @@ public class BotService extends TelegramLongPollingBot{
         }
     }
 
-    public void sendNotificationWithButtons (Long chatId, String text, Long notificationId) {
+    // The bot's own HTTP client keeps only two connections to the Bot API, which caps how many
+    // notifications the dispatcher can have in flight, so they go through a separate client
+    private <T extends Serializable> T executeConcurrently (BotApiMethod<T> method) throws TelegramApiException {
+        method.validate();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(getBaseUrl() + method.getMethod()))
+                .timeout(API_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(method), StandardCharsets.UTF_8))
+                .build();
+            return method.deserializeResponse(apiClient.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8)).body());
+        }
+        catch (IOException e) {
+            throw new TelegramApiException("Unable to execute " + method.getMethod() + " method", e);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TelegramApiException("Interrupted while executing " + method.getMethod() + " method", e);
+        }
+    }
+
+    // Throws on failure, so that the dispatcher can retry the delivery
+    public void sendNotificationWithButtons (Long chatId, String text, Long notificationId) throws TelegramApiException {
         SendMessage message = new SendMessage(String.valueOf(chatId), text);
 
         List <List <InlineKeyboardButton>> rows = new ArrayList<>();
@@ -144,13 +189,8 @@ public class BotService extends TelegramLongPollingBot{
         rows.add(row);
         message.setReplyMarkup(new InlineKeyboardMarkup(rows));
 
-        try {
-            execute(message);
-            logger.info("Notification sent to chat: {}", chatId);
-        }
-        catch (TelegramApiException e) {
-            logger.error("Failed to send notification", e);
-        }
+        executeConcurrently(message);
+        logger.info("Notification sent to chat: {}", chatId);
     }
 
     public void handleStart (Long chatId, String text) {
@@ -0,0 +1,72 @@
+package com.example.demo.service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.dto.CheckInRequestDto;
+import com.example.demo.dto.UpdateResponseDto;
+import com.example.demo.dto.UserDeviceResponseDto;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+
+@Service
+@RequiredArgsConstructor
+public class CheckInService {
+    private final UserDeviceService userDeviceService;
+    private final UpdateService updateService;
+    private final AppVersionService appVersionService;
+    private static final Logger logger = LoggerFactory.getLogger(CheckInService.class);
+
+    private final Map<Long, LocalDateTime> pendingLastSeen = new ConcurrentHashMap<>();
+
+    public UpdateResponseDto checkIn (Long id, CheckInRequestDto request) {
+        UserDeviceResponseDto userDevice = userDeviceService.getById(id);
+
+        if (request.currentVersion() != null && !request.currentVersion().equals(userDevice.currentVersion())) {
+            if (appVersionService.getUpdateType(request.currentVersion(), userDevice.platform()) == null) {
+                throw new IllegalArgumentException("There is no AppVersion " + request.currentVersion() + " for platform " + userDevice.platform());
+            }
+            pendingLastSeen.remove(id);
+            userDevice = userDeviceService.updateOnlyVersion(id, request.currentVersion());
+            logger.info("Device {} checked in on new version: {}", id, request.currentVersion());
+        }
+        else {
+            pendingLastSeen.merge(id, LocalDateTime.now(), (a, b) -> a.isAfter(b) ? a : b);
+        }
+
+        return updateService.checkUserDeviceForUpdate(userDevice);
+    }
+
+    @Scheduled(fixedDelayString = "${device.checkin.flush-interval}")
+    public void flush () {
+        if (pendingLastSeen.isEmpty()) return;
+
+        Map <Long, LocalDateTime> batch = new HashMap<>();
+        for (Long id : pendingLastSeen.keySet()) {
+            LocalDateTime lastSeen = pendingLastSeen.remove(id);
+            if (lastSeen != null) batch.put(id, lastSeen);
+        }
+
+        try {
+            userDeviceService.updateLastSeenInBatch(batch);
+            userDeviceService.evictCachedDevices(batch.keySet());
+        }
+        catch (Exception e) {
+            logger.warn("Failed to flush {} device check-ins, keeping them for the next flush", batch.size(), e);
+            batch.forEach((id, lastSeen) -> pendingLastSeen.merge(id, lastSeen, (a, b) -> a.isAfter(b) ? a : b));
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown () {
+        flush();
+    }
+}
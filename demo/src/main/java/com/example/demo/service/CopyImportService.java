@@ -0,0 +1,139 @@
+package com.example.demo.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.postgresql.PGConnection;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.ServerErrorMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.dto.UploadResponseDto;
+import com.example.demo.enums.PlatformType;
+
+import lombok.RequiredArgsConstructor;
+
+// Bulk-loads UserDevices through PostgreSQL COPY into a temporary staging table,
+// validates the staged rows with set-based queries and inserts the valid ones in one statement
+@Service
+@RequiredArgsConstructor
+public class CopyImportService {
+    private static final Logger logger = LoggerFactory.getLogger(CopyImportService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${upload.copy.max-reported-errors}")
+    private int maxReportedErrors;
+
+    private static final Map<String, String> USER_DEVICE_COLUMNS = Map.of(
+        "userid", "user_id",
+        "platform", "platform",
+        "currentversion", "current_version");
+
+    private static final Pattern COPY_LINE = Pattern.compile("line (\\d+)");
+
+    private static final String PLATFORMS = Arrays.stream(PlatformType.values())
+        .map(platform -> "'" + platform.name() + "'").collect(Collectors.joining(", "));
+
+    private static final List<String> VALIDATIONS = List.of(
+        "UPDATE user_device_staging SET reject_reason = 'Invalid userId: ' || coalesce(user_id, '') " +
+        "WHERE reject_reason IS NULL AND coalesce(trim(user_id), '') !~ '^[0-9]{1,18}$'",
+
+        "UPDATE user_device_staging SET reject_reason = 'Invalid platform: ' || coalesce(platform, '') " +
+        "WHERE reject_reason IS NULL AND (platform IS NULL OR upper(trim(platform)) NOT IN (" + PLATFORMS + "))",
+
+        "UPDATE user_device_staging s SET reject_reason = 'There is no User with ID: ' || trim(s.user_id) " +
+        "WHERE s.reject_reason IS NULL AND NOT EXISTS (SELECT 1 FROM users u WHERE u.id = trim(s.user_id)::bigint)",
+
+        "UPDATE user_device_staging s SET reject_reason = 'There is no AppVersion ' || coalesce(trim(s.current_version), '') || " +
+        "' for platform ' || upper(trim(s.platform)) WHERE s.reject_reason IS NULL AND NOT EXISTS " +
+        "(SELECT 1 FROM app_version v WHERE v.version = trim(s.current_version) AND v.platform = upper(trim(s.platform)))");
+
+    @CacheEvict (value = "userDevices", allEntries = true)
+    @Transactional
+    public UploadResponseDto importUserDevices (BufferedReader reader, String filename) throws IOException {
+        List <String> columns = stagingColumns(reader.readLine());
+
+        jdbcTemplate.execute("CREATE TEMP TABLE user_device_staging (row_number bigint GENERATED ALWAYS AS IDENTITY, " +
+            columns.stream().map(column -> column + " text").collect(Collectors.joining(", ")) +
+            ", reject_reason text) ON COMMIT DROP");
+        long totalRows = copyIn("COPY user_device_staging (" + String.join(", ", columns) + ") FROM STDIN WITH (FORMAT csv)",
+            reader, filename);
+        jdbcTemplate.execute("ANALYZE user_device_staging");
+        logger.info("Copied {} rows from {} into staging table", totalRows, filename);
+
+        VALIDATIONS.forEach(jdbcTemplate::update);
+
+        int inserted = jdbcTemplate.update("INSERT INTO user_device (id, user_id, platform, current_version, last_seen, update_status) " +
+            "SELECT nextval('user_device_id_seq'), trim(s.user_id)::bigint, upper(trim(s.platform)), trim(s.current_version), " +
+            "LOCALTIMESTAMP, v.update_type FROM user_device_staging s " +
+            "JOIN app_version v ON v.version = trim(s.current_version) AND v.platform = upper(trim(s.platform)) " +
+            "WHERE s.reject_reason IS NULL ORDER BY s.row_number");
+
+        List <String> errorList = new ArrayList<>(jdbcTemplate.query(
+            "SELECT row_number, reject_reason FROM user_device_staging WHERE reject_reason IS NOT NULL ORDER BY row_number LIMIT ?",
+            (rs, rowNum) -> filename + " : row " + rs.getLong("row_number") + " : " + rs.getString("reject_reason"),
+            maxReportedErrors));
+        int rejected = (int) totalRows - inserted;
+        if (rejected > errorList.size()) {
+            errorList.add(filename + " : " + (rejected - errorList.size()) + " more rejected rows are not listed");
+        }
+        logger.info("UserDevice COPY import completed. Success: {}, Failures: {}", inserted, rejected);
+
+        return new UploadResponseDto((int) totalRows, inserted, rejected, errorList);
+    }
+
+    // Maps the CSV header onto staging columns in file order, so COPY can load the columns positionally
+    private List<String> stagingColumns (String header) {
+        if (header == null) throw new IllegalArgumentException("File is empty");
+
+        List <String> columns = new ArrayList<>();
+        String[] names = header.split(",", -1);
+        for (int i = 0; i < names.length; i++) {
+            String name = names[i].trim().replace("\"", "").toLowerCase(Locale.ROOT);
+            columns.add(USER_DEVICE_COLUMNS.getOrDefault(name, "ignored_" + i));
+        }
+        for (Map.Entry<String, String> column : USER_DEVICE_COLUMNS.entrySet()) {
+            if (!columns.contains(column.getValue())) {
+                throw new IllegalArgumentException("Mapping for " + column.getKey() + " not found in the CSV header");
+            }
+        }
+        return columns;
+    }
+
+    // COPY stops at the first line it can't parse (wrong column count, unterminated quote, ...),
+    // so CSV syntax errors reject the whole file. The line is reported with the same numbering as
+    // the rejected rows, starting after the header.
+    private long copyIn (String sql, BufferedReader reader, String filename) {
+        return jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql, reader);
+            }
+            catch (IOException e) {
+                throw new IllegalArgumentException("Failed to copy CSV file: " + e.getMessage());
+            }
+            catch (PSQLException e) {
+                ServerErrorMessage error = e.getServerErrorMessage();
+                if (error == null || error.getSQLState() == null || !error.getSQLState().startsWith("22")) throw e;
+                Matcher line = COPY_LINE.matcher(error.getWhere() == null ? "" : error.getWhere());
+                throw new IllegalArgumentException(filename + " : " + (line.find() ? "row " + line.group(1) + " : " : "") +
+                    "Malformed CSV, nothing was imported: " + error.getMessage());
+            }
+        });
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.stream.Stream;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.dto.AppVersionResponseDto;
+import com.example.demo.dto.NotificationResponseDto;
+import com.example.demo.dto.UserDeviceResponseDto;
+import com.example.demo.repository.AppVersionRepository;
+import com.example.demo.repository.NotificationRepository;
+import com.example.demo.repository.UserDeviceRepository;
+
+import lombok.RequiredArgsConstructor;
+
+// Writes whole tables as CSV straight from a forward-only cursor. Rows are read as DTOs,
+// so nothing piles up in the persistence context and memory stays flat whatever the row count.
+// Headers use the import column names, so an export can be uploaded again.
+@Service
+@RequiredArgsConstructor
+@Transactional (readOnly = true)
+public class ExportService {
+    private static final Logger logger = LoggerFactory.getLogger(ExportService.class);
+
+    private final UserDeviceRepository userDeviceRepository;
+    private final AppVersionRepository appVersionRepository;
+    private final NotificationRepository notificationRepository;
+
+    public long exportUserDevices (Writer writer) throws IOException {
+        try (Stream <UserDeviceResponseDto> rows = userDeviceRepository.streamAllForExport()) {
+            CSVPrinter printer = printer(writer, "id", "userId", "platform", "currentVersion", "lastSeen");
+            long count = print(rows, printer, row -> printer.printRecord(row.id(), row.userId(), row.platform(), row.currentVersion(), row.lastSeen()));
+            logger.info("Exported {} UserDevices", count);
+            return count;
+        }
+    }
+
+    public long exportAppVersions (Writer writer) throws IOException {
+        try (Stream <AppVersionResponseDto> rows = appVersionRepository.streamAllForExport()) {
+            CSVPrinter printer = printer(writer, "id", "version", "platform", "updateType", "active", "releaseDate", "changelog");
+            long count = print(rows, printer, row -> printer.printRecord(row.id(), row.version(), row.platform(), row.updateType(), row.active(),
+                row.releaseDate(), row.changelog()));
+            logger.info("Exported {} AppVersions", count);
+            return count;
+        }
+    }
+
+    public long exportNotifications (Writer writer) throws IOException {
+        try (Stream <NotificationResponseDto> rows = notificationRepository.streamAllForExport()) {
+            CSVPrinter printer = printer(writer, "id", "deviceId", "userId", "currentVersion", "latestVersion", "updateType",
+                "status", "createdAt", "readAt", "message");
+            long count = print(rows, printer, row -> printer.printRecord(row.id(), row.deviceId(), row.userId(), row.currentVersion(),
+                row.latestVersion(), row.updateType(), row.status(), row.createdAt(), row.readAt(), row.message()));
+            logger.info("Exported {} Notifications", count);
+            return count;
+        }
+    }
+
+    private interface RowPrinter<T> {
+        void print(T row) throws IOException;
+    }
+
+    // The printer is flushed but not closed, closing the writer is left to the caller
+    private CSVPrinter printer (Writer writer, String... header) throws IOException {
+        return CSVFormat.DEFAULT.builder().setHeader(header).get().print(writer);
+    }
+
+    private <T> long print (Stream<T> rows, CSVPrinter printer, RowPrinter<T> rowPrinter) throws IOException {
+        long count = 0;
+        for (T row : (Iterable<T>) rows::iterator) {
+            rowPrinter.print(row);
+            count++;
+        }
+        printer.flush();
+        return count;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.demo.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.dto.BackgroundJobResponseDto;
+import com.example.demo.enums.JobType;
+import com.example.demo.mapper.CsvRecordMapper;
+import com.example.demo.util.Decompression;
+
+import lombok.RequiredArgsConstructor;
+
+// Imports an archived CSV file as a background job. Every commit carries the number of the last
+// row it covers, so a restarted job skips the committed rows and never inserts them twice.
+@Service
+@RequiredArgsConstructor
+public class ImportJobService {
+    private static final Logger logger = LoggerFactory.getLogger(ImportJobService.class);
+
+    private final BackgroundJobService backgroundJobService;
+    private final AppVersionService appVersionService;
+    private final UserDeviceService userDeviceService;
+    private final ImportValidator importValidator;
+
+    @Value("${upload.import.chunk-size}")
+    private int importChunkSize;
+
+    private record Row(long rowNumber, CSVRecord record) {
+    }
+
+    private record Importer<T>(Function<CSVRecord, T> mapper, Function<List<T>, Integer> batchWriter, Consumer<T> rowWriter) {
+    }
+
+    // Returns true once the whole file is imported and false if the job stopped running
+    public boolean run (Long id, JobType type) throws IOException {
+        BackgroundJobResponseDto job = backgroundJobService.getById(id);
+        long checkpoint = job.checkpoint() == null ? 0 : job.checkpoint();
+        Importer <?> importer = importerFor(type);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                Decompression.decompress(Files.newInputStream(Paths.get(job.payload()))), StandardCharsets.UTF_8));
+             CSVParser csvParser = CsvRecordMapper.FORMAT.parse(reader)) {
+            Iterator <CSVRecord> records = csvParser.iterator();
+            long rowNumber = 0;
+            while (rowNumber < checkpoint && records.hasNext()) {
+                records.next();
+                rowNumber++;
+            }
+            if (checkpoint > 0) logger.info("Import job {} resumes after row {}", id, checkpoint);
+
+            List <Row> chunk = new ArrayList<>();
+            while (records.hasNext()) {
+                chunk.add(new Row(++rowNumber, records.next()));
+                if (chunk.size() >= importChunkSize) {
+                    if (!importChunk(id, chunk, importer)) return false;
+                    chunk = new ArrayList<>();
+                }
+            }
+            return chunk.isEmpty() || importChunk(id, chunk, importer);
+        }
+    }
+
+    private Importer<?> importerFor (JobType type) {
+        return switch (type) {
+            case IMPORT_APP_VERSIONS -> new Importer<>(importValidator.appVersionMapper(),
+                appVersionService::createAll, appVersionService::create);
+            case IMPORT_USER_DEVICES -> new Importer<>(importValidator.userDeviceMapper(),
+                userDeviceService::createAll, userDeviceService::create);
+            default -> throw new IllegalArgumentException("Job type " + type + " is not an import");
+        };
+    }
+
+    // The chunk is written as one batch together with its checkpoint. If the batch fails,
+    // each row is committed on its own with its own checkpoint. Row errors are stored on the job.
+    private <T> boolean importChunk (Long id, List<Row> chunk, Importer<T> importer) {
+        Map <Long, T> mapped = new LinkedHashMap<>();
+        Map <Long, String> mapErrors = new LinkedHashMap<>();
+        for (Row row : chunk) {
+            try {
+                mapped.put(row.rowNumber(), importer.mapper().apply(row.record()));
+            }
+            catch (Exception e) {
+                mapErrors.put(row.rowNumber(), rowError(row.rowNumber(), e));
+            }
+        }
+
+        long lastRow = chunk.get(chunk.size() - 1).rowNumber();
+        try {
+            return backgroundJobService.commitProgress(id, () -> importer.batchWriter().apply(new ArrayList<>(mapped.values())),
+                chunk.size(), mapped.size(), chunk.size() - mapped.size(), lastRow, new ArrayList<>(mapErrors.values()));
+        }
+        catch (Exception e) {
+            logger.warn("Import job {} failed to import rows {} - {} in batch, retrying them one by one: {}",
+                id, chunk.get(0).rowNumber(), lastRow, e.getMessage());
+        }
+
+        for (Row row : chunk) {
+            T request = mapped.get(row.rowNumber());
+            String error = mapErrors.get(row.rowNumber());
+            if (request != null) {
+                try {
+                    if (!backgroundJobService.commitProgress(id, () -> importer.rowWriter().accept(request), 1, 1, 0, row.rowNumber(),
+                        List.of())) return false;
+                    continue;
+                }
+                catch (Exception e) {
+                    error = rowError(row.rowNumber(), e);
+                }
+            }
+            if (!backgroundJobService.commitProgress(id, () -> {}, 1, 0, 1, row.rowNumber(), List.of(error))) return false;
+        }
+        return true;
+    }
+
+    private static String rowError (long rowNumber, Exception e) {
+        return "row " + rowNumber + " : " + e.getMessage();
+    }
+}
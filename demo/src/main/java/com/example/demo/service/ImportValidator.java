@@ -0,0 +1,95 @@
+package com.example.demo.service;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.apache.commons.csv.CSVRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.dto.AppVersionRequestDto;
+import com.example.demo.dto.UserDeviceRequestDto;
+import com.example.demo.dto.UserDeviceUpsertDto;
+import com.example.demo.enums.PlatformType;
+import com.example.demo.mapper.CsvRecordMapper;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.util.VersionOrder;
+
+import lombok.RequiredArgsConstructor;
+
+// Builds per-import row mappers that reject bad rows in memory, so only clean rows reach the database.
+// Reference data is loaded once when the mapper is built and shared by all import workers.
+@Service
+@RequiredArgsConstructor
+public class ImportValidator {
+    private static final Logger logger = LoggerFactory.getLogger(ImportValidator.class);
+
+    private final UserRepository userRepository;
+    private final AppVersionCatalog appVersionCatalog;
+
+    public Function<CSVRecord, UserDeviceRequestDto> userDeviceMapper () {
+        Set <Long> userIds = loadUserIds();
+
+        return record -> {
+            UserDeviceRequestDto request = CsvRecordMapper.csvRecordToUserDeviceRequestDto(record);
+            validateUserDevice(userIds, request.userId(), request.platform(), request.currentVersion());
+            return request;
+        };
+    }
+
+    public Function<CSVRecord, UserDeviceUpsertDto> userDeviceUpsertMapper () {
+        Set <Long> userIds = loadUserIds();
+        Set <Long> seenIds = ConcurrentHashMap.newKeySet();
+
+        return record -> {
+            UserDeviceUpsertDto request = CsvRecordMapper.csvRecordToUserDeviceUpsertDto(record);
+            validateUserDevice(userIds, request.userId(), request.platform(), request.currentVersion());
+            if (!seenIds.add(request.id())) {
+                throw new IllegalArgumentException("UserDevice " + request.id() + " is listed more than once");
+            }
+            return request;
+        };
+    }
+
+    public Function<CSVRecord, AppVersionRequestDto> appVersionMapper () {
+        return appVersionMapper(false);
+    }
+
+    public Function<CSVRecord, AppVersionRequestDto> appVersionUpsertMapper () {
+        return appVersionMapper(true);
+    }
+
+    private Function<CSVRecord, AppVersionRequestDto> appVersionMapper (boolean allowExisting) {
+        Set <String> seenVersions = ConcurrentHashMap.newKeySet();
+
+        return record -> {
+            AppVersionRequestDto request = CsvRecordMapper.csvRecordToAppVersionRequestDto(record);
+            VersionOrder.of(request.version());
+            if (!allowExisting && appVersionCatalog.containsVersion(request.version())) {
+                throw new IllegalArgumentException("AppVersion " + request.version() + " already exists");
+            }
+            if (!seenVersions.add(request.version())) {
+                throw new IllegalArgumentException("AppVersion " + request.version() + " is listed more than once");
+            }
+            return request;
+        };
+    }
+
+    private Set<Long> loadUserIds () {
+        Set <Long> userIds = new HashSet<>(userRepository.findAllIds());
+        logger.info("Loaded {} user IDs for import validation", userIds.size());
+        return userIds;
+    }
+
+    private void validateUserDevice (Set<Long> userIds, Long userId, PlatformType platform, String currentVersion) {
+        if (!userIds.contains(userId)) {
+            throw new IllegalArgumentException("There is no User with ID: " + userId);
+        }
+        if (appVersionCatalog.find(currentVersion, platform).isEmpty()) {
+            throw new IllegalArgumentException("There is no AppVersion " + currentVersion + " for platform " + platform);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.demo.service;
+
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.dto.BackgroundJobResponseDto;
+import com.example.demo.dto.ChunkResultDto;
+import com.example.demo.enums.JobStatus;
+import com.example.demo.enums.JobType;
+
+import lombok.RequiredArgsConstructor;
+
+@Service
+@RequiredArgsConstructor
+public class JobRunner {
+    private final BackgroundJobService backgroundJobService;
+    private final UpdateService updateService;
+    private final NotificationService notificationService;
+    private final ImportJobService importJobService;
+    private final ThreadPoolTaskExecutor jobExecutor;
+    private static final Logger logger = LoggerFactory.getLogger(JobRunner.class);
+
+    public BackgroundJobResponseDto submit (JobType type) {
+        return submit(type, null);
+    }
+
+    public BackgroundJobResponseDto submit (JobType type, String payload) {
+        BackgroundJobResponseDto job = backgroundJobService.create(type, payload);
+        schedule(job);
+        return backgroundJobService.getById(job.id());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinished () {
+        for (BackgroundJobResponseDto job : backgroundJobService.getUnfinished()) {
+            logger.info("Resuming {} job {} after checkpoint {}", job.type(), job.id(), job.checkpoint());
+            schedule(job);
+        }
+    }
+
+    private void schedule (BackgroundJobResponseDto job) {
+        try {
+            jobExecutor.execute(() -> run(job.id(), job.type()));
+        }
+        catch (TaskRejectedException e) {
+            backgroundJobService.markRunning(job.id());
+            backgroundJobService.markFinished(job.id(), JobStatus.FAILED, "Job queue is full");
+        }
+    }
+
+    private void run (Long id, JobType type) {
+        if (!backgroundJobService.markRunning(id)) return;
+
+        try {
+            boolean completed = switch (type) {
+                case IMPORT_USER_DEVICES, IMPORT_APP_VERSIONS -> importJobService.run(id, type);
+                default -> runChunks(id, stepFor(type));
+            };
+            if (completed) backgroundJobService.markFinished(id, JobStatus.COMPLETED, null);
+        }
+        catch (Exception e) {
+            logger.error("Job {} failed", id, e);
+            backgroundJobService.markFinished(id, JobStatus.FAILED, e.getMessage());
+        }
+    }
+
+    private boolean runChunks (Long id, Function<Long, ChunkResultDto> step) {
+        ChunkResultDto chunk = backgroundJobService.commitChunk(id, step);
+        while (chunk != null && chunk.lastId() != null) {
+            chunk = backgroundJobService.commitChunk(id, step);
+        }
+        return chunk != null;
+    }
+
+    private Function<Long, ChunkResultDto> stepFor (JobType type) {
+        return switch (type) {
+            case FORCE_UPDATE -> updateService::forceUpdateChunk;
+            case NOTIFY_OUTDATED -> notificationService::sendNotificationsToOutdatedChunk;
+            default -> throw new IllegalArgumentException("Job type " + type + " has no chunk step");
+        };
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.demo.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import com.example.demo.model.NotificationOutbox;
+import com.example.demo.util.TokenBucket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+// Delivery is at-least-once: a message is acknowledged only after Telegram accepted it, so if the
+// acknowledgement is lost (crash or failed write) the row's lease expires and the message is sent again.
+@Service
+@RequiredArgsConstructor
+public class NotificationDispatcher {
+    private final NotificationOutboxService notificationOutboxService;
+    private final BotService botService;
+    private final ThreadPoolTaskExecutor outboxExecutor;
+    private final MeterRegistry meterRegistry;
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    @Value("${notification.outbox.batch-size}")
+    private int batchSize;
+
+    @Value("${notification.outbox.max-attempts}")
+    private int maxAttempts;
+
+    @Value("${notification.outbox.backoff-initial}")
+    private Duration backoffInitial;
+
+    @Value("${notification.outbox.backoff-max}")
+    private Duration backoffMax;
+
+    @Value("${notification.outbox.rate-limit.global-per-second}")
+    private double globalPerSecond;
+
+    @Value("${notification.outbox.rate-limit.per-chat-per-second}")
+    private double perChatPerSecond;
+
+    private TokenBucket globalBucket;
+    private final Map<Long, TokenBucket> chatBuckets = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private Timer sendTimer;
+    private Counter sentCounter;
+    private Counter retriedCounter;
+    private Counter failedCounter;
+    private Counter throttledCounter;
+    private Counter unacknowledgedCounter;
+
+    @PostConstruct
+    void init () {
+        // No burst capacity, so the messages are spread evenly over every second
+        globalBucket = new TokenBucket(1, globalPerSecond);
+
+        Gauge.builder("notification.outbox.pending", notificationOutboxService, NotificationOutboxService::countPending)
+            .description("Notifications waiting for delivery").register(meterRegistry);
+        Gauge.builder("notification.outbox.in-flight", inFlight, AtomicInteger::get)
+            .description("Notifications being sent right now").register(meterRegistry);
+        sendTimer = Timer.builder("notification.outbox.send").description("Bot API send latency").register(meterRegistry);
+        sentCounter = deliveries("sent");
+        retriedCounter = deliveries("retried");
+        failedCounter = deliveries("failed");
+        throttledCounter = deliveries("throttled");
+        unacknowledgedCounter = deliveries("unacknowledged");
+    }
+
+    private Counter deliveries (String result) {
+        return Counter.builder("notification.outbox.deliveries").tag("result", result).register(meterRegistry);
+    }
+
+    // Drains everything that is due, one claimed batch at a time. A message whose chat is
+    // over its rate goes back to the outbox for the chat's next free slot instead of holding a worker.
+    @Scheduled(fixedDelayString = "${notification.outbox.poll-interval}")
+    public void dispatch () {
+        Map <Long, Integer> deferredByChat = new HashMap<>();
+        List <NotificationOutbox> claimed = notificationOutboxService.claim(batchSize);
+        while (!claimed.isEmpty()) {
+            List <Future<?>> deliveries = new ArrayList<>();
+            for (NotificationOutbox entry : claimed) {
+                TokenBucket chatBucket = chatBuckets.computeIfAbsent(entry.getChatId(),
+                    chatId -> new TokenBucket(1, perChatPerSecond));
+                if (chatBucket.tryAcquire()) {
+                    deliveries.add(outboxExecutor.submit(() -> deliver(entry, chatBucket)));
+                    continue;
+                }
+                int queued = deferredByChat.merge(entry.getChatId(), 1, Integer::sum) - 1;
+                Duration wait = chatBucket.timeToNextToken().plusNanos((long) (queued * 1_000_000_000d / perChatPerSecond));
+                notificationOutboxService.defer(entry, LocalDateTime.now().plus(wait), entry.getLastError());
+            }
+            for (Future<?> delivery : deliveries) {
+                try {
+                    delivery.get();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                catch (ExecutionException e) {
+                    logger.error("Notification delivery failed", e.getCause());
+                }
+            }
+            if (claimed.size() < batchSize) break;
+            claimed = notificationOutboxService.claim(batchSize);
+        }
+        chatBuckets.values().removeIf(TokenBucket::isFull);
+    }
+
+    private void deliver (NotificationOutbox entry, TokenBucket chatBucket) {
+        inFlight.incrementAndGet();
+        try {
+            globalBucket.acquire();
+            sendTimer.recordCallable(() -> {
+                botService.sendNotificationWithButtons(entry.getChatId(), entry.getMessage(), entry.getNotificationId());
+                return null;
+            });
+            sentCounter.increment();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        catch (Exception e) {
+            Integer retryAfter = retryAfter(e);
+            if (retryAfter != null) {
+                // Flood control may be per chat or for the whole bot, so both wait it out
+                Duration pause = Duration.ofSeconds(retryAfter);
+                chatBucket.pause(pause);
+                globalBucket.pause(pause);
+                logger.warn("Bot API asked to retry notification {} after {}s", entry.getNotificationId(), retryAfter);
+                notificationOutboxService.defer(entry, LocalDateTime.now().plus(pause), e.getMessage());
+                throttledCounter.increment();
+                return;
+            }
+
+            int attempts = entry.getAttempts() + 1;
+            if (attempts >= maxAttempts) {
+                logger.error("Giving up on notification {} after {} attempts: {}", entry.getNotificationId(), attempts, e.getMessage());
+                notificationOutboxService.markFailed(entry, attempts, e.getMessage(), null);
+                failedCounter.increment();
+                return;
+            }
+            Duration backoff = backoff(attempts);
+            logger.warn("Failed to deliver notification {}, retrying in {}: {}", entry.getNotificationId(), backoff, e.getMessage());
+            notificationOutboxService.markFailed(entry, attempts, e.getMessage(), LocalDateTime.now().plus(backoff));
+            retriedCounter.increment();
+            return;
+        }
+        finally {
+            inFlight.decrementAndGet();
+        }
+        acknowledge(entry);
+    }
+
+    // Not treated as a failed send: the message already reached Telegram and is only sent again once the lease runs out
+    private void acknowledge (NotificationOutbox entry) {
+        try {
+            notificationOutboxService.markDelivered(entry);
+        }
+        catch (Exception e) {
+            logger.error("Notification {} was sent but not acknowledged, it will be sent again after the lease expires",
+                entry.getNotificationId(), e);
+            unacknowledgedCounter.increment();
+        }
+    }
+
+    private Integer retryAfter (Exception e) {
+        if (!(e instanceof TelegramApiRequestException requestException)) return null;
+        if (requestException.getErrorCode() == null || requestException.getErrorCode() != TOO_MANY_REQUESTS) return null;
+        return requestException.getParameters() == null ? null : requestException.getParameters().getRetryAfter();
+    }
+
+    private Duration backoff (int attempts) {
+        Duration backoff = backoffInitial.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return backoff.compareTo(backoffMax) > 0 ? backoffMax : backoff;
+    }
+}
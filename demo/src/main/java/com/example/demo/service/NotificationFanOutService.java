@@ -0,0 +1,104 @@
+package com.example.demo.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.dto.UpdateResponseDto;
+import com.example.demo.enums.NotificationType;
+import com.example.demo.enums.UpdateType;
+import com.example.demo.model.Notification;
+
+import lombok.RequiredArgsConstructor;
+
+@Service
+@RequiredArgsConstructor
+public class NotificationFanOutService {
+    private final JdbcTemplate jdbcTemplate;
+    private final UserService userService;
+    private final NotificationOutboxService notificationOutboxService;
+    private final NotificationUnreadCounterService notificationUnreadCounterService;
+    private static final Logger logger = LoggerFactory.getLogger(NotificationFanOutService.class);
+
+    // Creates the notifications for one chunk of outdated devices in a single transaction:
+    // one query for the users' chat IDs and one insert that skips the notifications that
+    // already exist. Telegram delivery is queued in the same transaction.
+    @Transactional
+    public int createNotifications (List<UpdateResponseDto> chunk) {
+        Map <Long, Long> chatIds = userService.getTelegramChatIds(
+            chunk.stream().map(UpdateResponseDto::userId).distinct().toList());
+
+        List <Notification> notifications = new ArrayList<>();
+        for (UpdateResponseDto updateRecord : chunk) {
+            notifications.add(new Notification(null, updateRecord.userDeviceId(), null, updateRecord.userId(),
+                null, updateRecord.currentVersion(), null, updateRecord.latestVersion(), null, updateRecord.updateType(),
+                NotificationType.PENDING, null, null, generateMessage(updateRecord.updateType(), updateRecord.latestVersion())));
+        }
+
+        List <Notification> inserted = insertNew(notifications);
+        if (inserted.isEmpty()) return 0;
+        inserted.stream().map(Notification::getUserId).distinct().filter(userId -> !chatIds.containsKey(userId))
+            .forEach(userId -> logger.warn("User {} has no Telegram chat ID", userId));
+        notificationOutboxService.enqueueAll(inserted, chatIds);
+        logger.info("Created {} notifications for devices {} - {}, skipped {} existing", inserted.size(),
+            chunk.get(0).userDeviceId(), chunk.get(chunk.size() - 1).userDeviceId(), chunk.size() - inserted.size());
+
+        return inserted.size();
+    }
+
+    // The unique dedup key makes the database skip notifications that already exist, so
+    // concurrent fan-outs can't create the same one twice. Returns only the inserted rows.
+    @Transactional
+    public List<Notification> insertNew (List<Notification> notifications) {
+        List <Notification> inserted = jdbcTemplate.query(
+            "INSERT INTO notification (id, device_id, user_id, current_version, latest_version, update_type, status, created_at, message) " +
+            "SELECT nextval('notification_id_seq'), u.device_id, u.user_id, u.current_version, u.latest_version, " +
+            "u.update_type, u.status, LOCALTIMESTAMP, u.message " +
+            "FROM unnest(?::bigint[], ?::bigint[], ?::text[], ?::text[], ?::text[], ?::text[], ?::text[]) " +
+            "AS u(device_id, user_id, current_version, latest_version, update_type, status, message) " +
+            "ON CONFLICT (device_id, current_version, latest_version, update_type) DO NOTHING RETURNING *",
+            this::mapNotification,
+            notifications.stream().map(Notification::getDeviceId).toArray(Long[]::new),
+            notifications.stream().map(Notification::getUserId).toArray(Long[]::new),
+            notifications.stream().map(Notification::getCurrentVersion).toArray(String[]::new),
+            notifications.stream().map(Notification::getLatestVersion).toArray(String[]::new),
+            notifications.stream().map(notification -> notification.getUpdateType() == null ? null : notification.getUpdateType().name())
+                .toArray(String[]::new),
+            notifications.stream().map(notification -> notification.getStatus().name()).toArray(String[]::new),
+            notifications.stream().map(Notification::getMessage).toArray(String[]::new));
+        notificationUnreadCounterService.added(inserted);
+
+        return inserted;
+    }
+
+    private Notification mapNotification (ResultSet rs, int rowNum) throws SQLException {
+        Timestamp readAt = rs.getTimestamp("read_at");
+        String updateType = rs.getString("update_type");
+        return new Notification(rs.getLong("id"), rs.getObject("device_id", Long.class), null, rs.getLong("user_id"),
+            null, rs.getString("current_version"), null, rs.getString("latest_version"), null,
+            updateType == null ? null : UpdateType.valueOf(updateType), NotificationType.valueOf(rs.getString("status")),
+            rs.getTimestamp("created_at").toLocalDateTime(), readAt == null ? null : readAt.toLocalDateTime(), rs.getString("message"));
+    }
+
+    private String generateMessage (UpdateType updateType, String latestVersion) {
+        if (updateType == UpdateType.DEPRECATED) {
+            return "Your app version is no longer supported. Update to "  + latestVersion + " immediately.";
+        }
+        if (updateType == UpdateType.MANDATORY) {
+            return "Your app version is outdated. Update to "  + latestVersion + " is recommended.";
+        }
+        if (updateType == UpdateType.OPTIONAL) {
+            return "An optional update to "  + latestVersion + " is available.";
+        }
+        return "Your version is the latest. IDK who sent you this notification 0_o";
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.demo.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.enums.NotificationType;
+import com.example.demo.enums.OutboxStatus;
+import com.example.demo.model.Notification;
+import com.example.demo.model.NotificationOutbox;
+import com.example.demo.repository.NotificationOutboxRepository;
+import com.example.demo.repository.NotificationRepository;
+
+import lombok.RequiredArgsConstructor;
+
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class NotificationOutboxService {
+    private final NotificationOutboxRepository notificationOutboxRepository;
+    private final NotificationRepository notificationRepository;
+    private final NotificationUnreadCounterService notificationUnreadCounterService;
+    private static final Logger logger = LoggerFactory.getLogger(NotificationOutboxService.class);
+
+    @Value("${notification.outbox.lease}")
+    private Duration lease;
+
+    // Called inside the transaction that saves the notifications, so a committed
+    // notification always has its delivery queued
+    public void enqueueAll (List<Notification> notifications, Map<Long, Long> chatIds) {
+        LocalDateTime now = LocalDateTime.now();
+        List <NotificationOutbox> entries = new ArrayList<>();
+        for (Notification notification : notifications) {
+            Long chatId = chatIds.get(notification.getUserId());
+            if (chatId == null) continue;
+            entries.add(new NotificationOutbox(null, notification.getId(), chatId, notification.getMessage(),
+                OutboxStatus.PENDING, 0, now, null, null, null));
+        }
+        notificationOutboxRepository.saveAll(entries);
+        logger.debug("Queued {} notifications for delivery", entries.size());
+    }
+
+    // Claimed rows are leased to the caller, so they are picked up again if it dies before recording the result.
+    // That makes delivery at-least-once: a message sent just before such a crash is sent a second time.
+    public List<NotificationOutbox> claim (int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List <NotificationOutbox> entries = notificationOutboxRepository.findDueForUpdate(now, limit);
+        for (NotificationOutbox entry : entries) {
+            entry.setStatus(OutboxStatus.PROCESSING);
+            entry.setLockedUntil(now.plus(lease));
+        }
+        return entries;
+    }
+
+    public void markDelivered (NotificationOutbox entry) {
+        notificationOutboxRepository.deleteById(entry.getId());
+        notificationRepository.updateStatus(entry.getNotificationId(), NotificationType.PENDING, NotificationType.SENT);
+    }
+
+    // Postponed by the rate limits, which doesn't count as a failed attempt
+    public void defer (NotificationOutbox entry, LocalDateTime nextAttemptAt, String reason) {
+        notificationOutboxRepository.reschedule(entry.getId(), OutboxStatus.PENDING, entry.getAttempts(), nextAttemptAt, reason);
+    }
+
+    // Without a next attempt the delivery is given up and the notification is marked as failed
+    public void markFailed (NotificationOutbox entry, int attempts, String error, LocalDateTime nextAttemptAt) {
+        if (nextAttemptAt != null) {
+            notificationOutboxRepository.reschedule(entry.getId(), OutboxStatus.PENDING, attempts, nextAttemptAt, error);
+            return;
+        }
+        notificationOutboxRepository.reschedule(entry.getId(), OutboxStatus.FAILED, attempts, entry.getNextAttemptAt(), error);
+        if (notificationRepository.updateStatus(entry.getNotificationId(), NotificationType.PENDING, NotificationType.FAILED) > 0) {
+            notificationRepository.findById(entry.getNotificationId())
+                .ifPresent(notification -> notificationUnreadCounterService.removed(notification.getUserId()));
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public long countPending () {
+        return notificationOutboxRepository.countByStatus(OutboxStatus.PENDING);
+    }
+}
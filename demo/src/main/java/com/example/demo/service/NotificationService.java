@@ -3,23 +3,28 @@ package com.example.demo.service;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.transaction.support.TransactionSynchronization;
-import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import com.example.demo.dto.ChunkResultDto;
+import com.example.demo.dto.NotificationPageDto;
 import com.example.demo.dto.NotificationRequestDto;
 import com.example.demo.dto.NotificationResponseDto;
 import com.example.demo.dto.UpdateResponseDto;
 import com.example.demo.dto.UserDto;
 import com.example.demo.enums.NotificationType;
-import com.example.demo.enums.UpdateType;
 import com.example.demo.mapper.NotificationMapper;
 import com.example.demo.model.Notification;
 import com.example.demo.repository.NotificationRepository;
+import com.example.demo.util.NotificationCursor;
 
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
@@ -31,72 +36,74 @@ public class NotificationService {
     private final NotificationRepository notificationRepository;
     private final UserService userService;
     private final UpdateService updateService;
-    private final BotService botService;
+    private final NotificationFanOutService notificationFanOutService;
+    private final NotificationOutboxService notificationOutboxService;
+    private final NotificationUnreadCounterService notificationUnreadCounterService;
     private static final Logger logger = LoggerFactory.getLogger(NotificationService.class);
 
+    private static final List<NotificationType> UNREAD_STATUSES = NotificationUnreadCounterService.UNREAD_STATUSES;
+
+    @Value("${notification.history.max-page-size}")
+    private int maxPageSize;
+
     //CRUD
 
-    public List<NotificationResponseDto> getNotificationsByDeviceId (Long id) {
-        List <Notification> notifications = notificationRepository.findByDeviceIdOrderByCreatedAtDesc(id);
-        List <NotificationResponseDto> response = new ArrayList<>();
-        for (Notification notification : notifications) {
-            response.add(NotificationMapper.notificationToNotificationResponseDto(notification));
-        }
-        logger.info("Successfully retrieved all notifications for device {}. Total count: {}", id, response.size());
-            
+    public NotificationPageDto getNotificationsByDeviceId (Long id, String cursor, int size) {
+        NotificationCursor after = NotificationCursor.decode(cursor);
+        Limit limit = pageLimit(size);
+        List <Notification> notifications = after == null
+            ? notificationRepository.findByDeviceIdOrderByCreatedAtDescIdDesc(id, limit)
+            : notificationRepository.findByDeviceIdBefore(id, after.createdAt(), after.id(), limit);
+        NotificationPageDto response = toPage(notifications, limit);
+        logger.info("Successfully retrieved notifications for device {}. Page size: {}", id, response.notifications().size());
+
         return response;
     }
 
-    public List<NotificationResponseDto> getNotificationsByUserId (Long id) {
-        List <Notification> notifications = notificationRepository.findByUserIdOrderByCreatedAtDesc(id);
-        List <NotificationResponseDto> response = new ArrayList<>();
-        for (Notification notification : notifications) {
-            response.add(NotificationMapper.notificationToNotificationResponseDto(notification));
-        }
-        logger.info("Successfully retrieved all notifications for user {}. Total count: {}", id, response.size());
+    public NotificationPageDto getNotificationsByUserId (Long id, String cursor, int size) {
+        NotificationCursor after = NotificationCursor.decode(cursor);
+        Limit limit = pageLimit(size);
+        List <Notification> notifications = after == null
+            ? notificationRepository.findByUserIdOrderByCreatedAtDescIdDesc(id, limit)
+            : notificationRepository.findByUserIdBefore(id, after.createdAt(), after.id(), limit);
+        NotificationPageDto response = toPage(notifications, limit);
+        logger.info("Successfully retrieved notifications for user {}. Page size: {}", id, response.notifications().size());
 
         return response;
     }
 
-    public List<NotificationResponseDto> getUnreadNotificationsByUserId (Long id) {
-        List <Notification> notifications = notificationRepository.findByUserIdAndStatus(id, NotificationType.PENDING);
-        notifications.addAll(notificationRepository.findByUserIdAndStatus(id, NotificationType.SENT));
-            
-        List <NotificationResponseDto> response = new ArrayList<>();
-        for (Notification notification : notifications) {
-            response.add(NotificationMapper.notificationToNotificationResponseDto(notification));
-        }
-        logger.info("Successfully retrieved all unread notifications for user {}. Total count: {}", id, response.size());
-        
+    public NotificationPageDto getUnreadNotificationsByUserId (Long id, String cursor, int size) {
+        NotificationCursor after = NotificationCursor.decode(cursor);
+        Limit limit = pageLimit(size);
+        List <Notification> notifications = after == null
+            ? notificationRepository.findByUserIdAndStatusInOrderByCreatedAtDescIdDesc(id, UNREAD_STATUSES, limit)
+            : notificationRepository.findByUserIdAndStatusInBefore(id, UNREAD_STATUSES, after.createdAt(), after.id(), limit);
+        NotificationPageDto response = toPage(notifications, limit);
+        logger.info("Successfully retrieved unread notifications for user {}. Page size: {}", id, response.notifications().size());
+
         return response;
     }
 
+    public long getUnreadCountByUserId (Long id) {
+        return notificationUnreadCounterService.getUnreadCount(id);
+    }
+
     @Transactional
     public NotificationResponseDto createNotification (NotificationRequestDto request) {
-        if (notificationRepository.existsByDeviceIdAndCurrentVersionAndLatestVersionAndUpdateType(
-        request.deviceId(), request.currentVersion(), request.latestVersion(), request.updateType())) {
+        List <Notification> inserted = notificationFanOutService.insertNew(List.of(new Notification(null, request.deviceId(), null,
+        request.userId(), null, request.currentVersion(), null, request.latestVersion(), null,
+        request.updateType(), NotificationType.PENDING, null, null, request.message())));
+        if (inserted.isEmpty()) {
             logger.info("Similar notification already exists for device {}", request.deviceId());
             return null;
         }
-        
-        Notification newNotification = notificationRepository.save(new Notification(null, request.deviceId(), null, request.userId(),
-        null, request.currentVersion(), null, request.latestVersion(), null,
-        request.updateType(), NotificationType.PENDING, null, null, request.message()));
+
+        Notification newNotification = inserted.get(0);
         logger.info("Update notification created. ID: {}", newNotification.getId());
 
         UserDto user = userService.getUser(request.userId());
         if (user.telegramChatId() != null) {
-            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-                @Override
-                public void afterCommit() {
-                    botService.sendNotificationWithButtons(
-                        user.telegramChatId(),
-                        request.message(),
-                        newNotification.getId());
-                }
-            });
-            newNotification.setStatus(NotificationType.SENT);
-            notificationRepository.save(newNotification);
+            notificationOutboxService.enqueueAll(List.of(newNotification), Map.of(request.userId(), user.telegramChatId()));
         }
         else {
             logger.warn("User {} has no Telegram chat ID", request.userId());
@@ -107,8 +114,11 @@ public class NotificationService {
 
     @Transactional
     public NotificationResponseDto markAsRead (Long id) {
-        Notification updated = notificationRepository.findById(id).map(
+        Notification updated = notificationRepository.findForUpdateById(id).map(
         existingNotification -> {
+            if (NotificationUnreadCounterService.isUnread(existingNotification.getStatus())) {
+                notificationUnreadCounterService.removed(existingNotification.getUserId());
+            }
             existingNotification.setStatus(NotificationType.READ);
             existingNotification.setReadAt(LocalDateTime.now());
             logger.info("Successfully marked notification {} as read", id);
@@ -125,8 +135,11 @@ public class NotificationService {
 
     @Transactional
     public NotificationResponseDto markAsDismissed (Long id) {
-        Notification updated = notificationRepository.findById(id).map(
+        Notification updated = notificationRepository.findForUpdateById(id).map(
         existingNotification -> {
+            if (NotificationUnreadCounterService.isUnread(existingNotification.getStatus())) {
+                notificationUnreadCounterService.removed(existingNotification.getUserId());
+            }
             existingNotification.setStatus(NotificationType.DISMISSED);
             existingNotification.setReadAt(LocalDateTime.now());
             logger.info("Successfully marked notification {} as dismissed", id);
@@ -151,8 +164,12 @@ public class NotificationService {
 
     @Transactional
     public boolean deleteSingleNotification (Long id) {
-        if (notificationRepository.existsById(id)) {
-            notificationRepository.deleteById(id);
+        Notification notification = notificationRepository.findForUpdateById(id).orElse(null);
+        if (notification != null) {
+            if (NotificationUnreadCounterService.isUnread(notification.getStatus())) {
+                notificationUnreadCounterService.removed(notification.getUserId());
+            }
+            notificationRepository.delete(notification);
             logger.info("Successfully deleted notification with ID: {}", id);
             return true;
         }
@@ -161,36 +178,57 @@ public class NotificationService {
 
     //LOGIC
     
-    @Transactional
+    // Every chunk is committed on its own, so there's no transaction around the whole fan-out
+    @Transactional (propagation = Propagation.NOT_SUPPORTED)
     public String sendNotificationsToOutdatedDevices() {
         int successCount = 0;
-        List <UpdateResponseDto> outdatedDevices = updateService.getDevicesWithUpdateType("MANDATORY");
-        outdatedDevices.addAll(updateService.getDevicesWithUpdateType("DEPRECATED"));
-
-        for (UpdateResponseDto updateRecord : outdatedDevices) {
-            try {
-            createNotification(new NotificationRequestDto(updateRecord.userDeviceId(), updateRecord.userId(),
-            updateRecord.currentVersion(), updateRecord.latestVersion(), updateRecord.updateType(), generateMessage(
-                updateRecord.updateType(), updateRecord.latestVersion()
-            ))); successCount++;}
-            catch (Exception e) {
-                logger.warn("Failed to send notification to device {}", updateRecord.userDeviceId());
-            }
+        ChunkResultDto chunk = sendNotificationsToOutdatedChunk(null);
+        while (chunk.lastId() != null) {
+            successCount += chunk.succeeded();
+            chunk = sendNotificationsToOutdatedChunk(chunk.lastId());
         }
         logger.info("Created {} notifications for outdated devices", successCount);
         return "Sent " + successCount + " notifications";
     }
 
-    private String generateMessage (UpdateType updateType, String latestVersion) {
-        if (updateType == UpdateType.DEPRECATED) {
-            return "Your app version is no longer supported. Update to "  + latestVersion + " immediately.";
+    // Every user is recounted in a transaction of its own, holding only that user's counter lock
+    @Scheduled(cron = "${notification.unread-counter.reconcile-cron}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int reconcileUnreadCounters () {
+        int fixed = 0;
+        for (Long userId : notificationUnreadCounterService.findDrifted()) {
+            if (notificationUnreadCounterService.reconcile(userId)) fixed++;
         }
-        if (updateType == UpdateType.MANDATORY) {
-            return "Your app version is outdated. Update to "  + latestVersion + " is recommended.";
+        logger.info("Reconciled unread notification counters. Fixed: {}", fixed);
+        return fixed;
+    }
+
+    public ChunkResultDto sendNotificationsToOutdatedChunk (Long afterId) {
+        List <UpdateResponseDto> outdatedDevices = updateService.getOutdatedDevicesAfter(afterId);
+        if (outdatedDevices.isEmpty()) return new ChunkResultDto(0, 0, 0, null);
+
+        int successCount = notificationFanOutService.createNotifications(outdatedDevices);
+        return new ChunkResultDto(outdatedDevices.size(), successCount, 0,
+            outdatedDevices.get(outdatedDevices.size() - 1).userDeviceId());
+    }
+
+    // One extra row is fetched to tell whether there is a next page
+    private Limit pageLimit (int size) {
+        if (size < 1) throw new IllegalArgumentException("Page size must be positive");
+        return Limit.of(Math.min(size, maxPageSize) + 1);
+    }
+
+    private NotificationPageDto toPage (List<Notification> notifications, Limit limit) {
+        int size = limit.max() - 1;
+        List <NotificationResponseDto> page = new ArrayList<>();
+        for (Notification notification : notifications.subList(0, Math.min(size, notifications.size()))) {
+            page.add(NotificationMapper.notificationToNotificationResponseDto(notification));
         }
-        if (updateType == UpdateType.OPTIONAL) {
-            return "An optional update to "  + latestVersion + " is available.";
+        String nextCursor = null;
+        if (notifications.size() > size) {
+            NotificationResponseDto last = page.get(page.size() - 1);
+            nextCursor = new NotificationCursor(last.createdAt(), last.id()).encode();
         }
-        return "Your version is the latest. IDK who sent you this notification 0_o";
+        return new NotificationPageDto(page, nextCursor);
     }
 }
@@ -0,0 +1,80 @@
+package com.example.demo.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.enums.NotificationType;
+import com.example.demo.model.Notification;
+import com.example.demo.model.NotificationUnreadCounter;
+import com.example.demo.repository.NotificationRepository;
+import com.example.demo.repository.NotificationUnreadCounterRepository;
+
+import lombok.RequiredArgsConstructor;
+
+// Keeps the number of unread (PENDING or SENT) notifications per user, so the unread badge
+// is a primary key lookup. The counters change in the same transaction as the notifications.
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class NotificationUnreadCounterService {
+    private final NotificationUnreadCounterRepository notificationUnreadCounterRepository;
+    private final NotificationRepository notificationRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private static final Logger logger = LoggerFactory.getLogger(NotificationUnreadCounterService.class);
+
+    public static final List<NotificationType> UNREAD_STATUSES = List.of(NotificationType.PENDING, NotificationType.SENT);
+
+    public static boolean isUnread (NotificationType status) {
+        return UNREAD_STATUSES.contains(status);
+    }
+
+    @Transactional(readOnly = true)
+    public long getUnreadCount (Long userId) {
+        return notificationUnreadCounterRepository.findById(userId).map(NotificationUnreadCounter::getUnreadCount).orElse(0L);
+    }
+
+    // One upsert for the whole batch. Users are sorted so concurrent batches lock the counters in the same order.
+    public void added (List<Notification> notifications) {
+        Map <Long, Long> deltas = new TreeMap<>();
+        for (Notification notification : notifications) {
+            if (isUnread(notification.getStatus())) deltas.merge(notification.getUserId(), 1L, Long::sum);
+        }
+        if (deltas.isEmpty()) return;
+
+        jdbcTemplate.update(
+            "INSERT INTO notification_unread_counter (user_id, unread_count) " +
+            "SELECT * FROM unnest(?::bigint[], ?::bigint[]) " +
+            "ON CONFLICT (user_id) DO UPDATE SET unread_count = notification_unread_counter.unread_count + EXCLUDED.unread_count",
+            deltas.keySet().toArray(Long[]::new), deltas.values().toArray(Long[]::new));
+    }
+
+    public void removed (Long userId) {
+        notificationUnreadCounterRepository.add(userId, -1);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Long> findDrifted () {
+        return notificationUnreadCounterRepository.findDriftedUserIds();
+    }
+
+    // The counter row is locked before counting. Writers that changed it before commit first, and the
+    // count (a new snapshot taken after the lock) sees their notifications. Writers after wait for the lock
+    // and apply their change on top of the recount, so no concurrent change is lost.
+    public boolean reconcile (Long userId) {
+        notificationUnreadCounterRepository.createIfAbsent(userId);
+        NotificationUnreadCounter counter = notificationUnreadCounterRepository.findForUpdateByUserId(userId).orElseThrow();
+        long actual = notificationRepository.countByUserIdAndStatusIn(userId, UNREAD_STATUSES);
+        if (counter.getUnreadCount() == actual) return false;
+
+        logger.warn("Unread counter of user {} drifted: {}, actual: {}", userId, counter.getUnreadCount(), actual);
+        counter.setUnreadCount(actual);
+        return true;
+    }
+}
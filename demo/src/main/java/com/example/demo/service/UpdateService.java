@@ -1,18 +1,34 @@
 package com.example.demo.service;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.demo.dto.AppVersionResponseDto;
+import com.example.demo.dto.ChunkResultDto;
+import com.example.demo.dto.RolloutResultDto;
+import com.example.demo.dto.UpdateCheckResultDto;
 import com.example.demo.dto.UpdateResponseDto;
 import com.example.demo.dto.UserDeviceResponseDto;
 import com.example.demo.enums.PlatformType;
 import com.example.demo.enums.UpdateType;
+import com.example.demo.repository.projection.DeviceUpdateStatus;
 
+import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 
 @RequiredArgsConstructor
@@ -21,9 +37,47 @@ public class UpdateService {
     private final AppVersionService appVersionService;
     private final UserDeviceService userDeviceService;
     private static final Logger logger = LoggerFactory.getLogger(UpdateService.class);
+    private static final Set<UpdateType> OUTDATED_TYPES = Set.of(UpdateType.MANDATORY, UpdateType.DEPRECATED);
+
+    @Value("${update.rollout.chunk-size}")
+    private int rolloutChunkSize;
+
+    @Value("${update.check.batch-max-size}")
+    private int checkBatchMaxSize;
 
     public UpdateResponseDto checkUserDeviceForUpdate (Long id) {
-        UserDeviceResponseDto userDevice = userDeviceService.getById(id);
+        return checkUserDeviceForUpdate(userDeviceService.getById(id));
+    }
+
+    public List<UpdateCheckResultDto> checkUserDevicesForUpdate (List<Long> ids) {
+        if (ids.size() > checkBatchMaxSize) {
+            throw new IllegalArgumentException("Too many devices in one batch. Maximum is " + checkBatchMaxSize);
+        }
+
+        Map <Long, UserDeviceResponseDto> userDevices = new HashMap<>();
+        for (UserDeviceResponseDto userDevice : userDeviceService.getAllById(ids.stream().filter(Objects::nonNull).distinct().toList())) {
+            userDevices.put(userDevice.id(), userDevice);
+        }
+
+        List <UpdateCheckResultDto> response = new ArrayList<>();
+        for (Long id : ids) {
+            UserDeviceResponseDto userDevice = userDevices.get(id);
+            if (userDevice == null) {
+                response.add(new UpdateCheckResultDto(id, null, "There's no UserDevice with ID: " + id));
+                continue;
+            }
+            try {response.add(new UpdateCheckResultDto(id, checkUserDeviceForUpdate(userDevice), null));}
+            catch (EntityNotFoundException | IllegalArgumentException e) {
+                response.add(new UpdateCheckResultDto(id, null, e.getMessage()));
+            }
+        }
+        logger.info("Checked {} devices for updates in one batch", response.size());
+
+        return response;
+    }
+
+    public UpdateResponseDto checkUserDeviceForUpdate (UserDeviceResponseDto userDevice) {
+        Long id = userDevice.id();
         String deviceVersion = userDevice.currentVersion();
         PlatformType devicePlatform = userDevice.platform();
 
@@ -52,20 +106,29 @@ public class UpdateService {
     }
 
     public List<UpdateResponseDto> getDevicesWithUpdateType (String type) {
-        UpdateType updateType;
-        try {updateType = UpdateType.valueOf(type.toUpperCase());}
-        catch (IllegalArgumentException e) {throw new IllegalArgumentException("Invalid update type is provided. Must be one of "+
-            "UNAVAILABLE, OPTIONAL, MANDATORY, DEPRECATED.");}
+        List <UpdateResponseDto> devicesWithSpecifiedUpdateType = getDevicesWithUpdateType(type, Pageable.unpaged()).getContent();
+        logger.info("Found {} devices with {} update type", devicesWithSpecifiedUpdateType.size(), type);
+
+        return new ArrayList<>(devicesWithSpecifiedUpdateType);
+    }
+
+    public Page<UpdateResponseDto> getDevicesWithUpdateType (String type, Pageable pageable) {
+        UpdateType updateType = parseUpdateType(type);
+        return userDeviceService.getUpdateStatusByUpdateType(updateType, pageable).map(this::toUpdateResponse);
+    }
 
-        List <UserDeviceResponseDto> allDevices = userDeviceService.getAll();
-        List <UpdateResponseDto> devicesWithSpecifiedUpdateType = new ArrayList<>();
-        for (UserDeviceResponseDto userDevice : allDevices) {
-            UpdateResponseDto updateData = checkUserDeviceForUpdate(userDevice.id());
-            if (updateData.updateType() == updateType) devicesWithSpecifiedUpdateType.add(updateData);
+    @Transactional(readOnly = true)
+    public long streamDevicesWithUpdateType (UpdateType updateType, Consumer<UpdateResponseDto> consumer) {
+        long count = 0;
+        try (Stream <DeviceUpdateStatus> statuses = userDeviceService.streamUpdateStatusByUpdateType(updateType)) {
+            for (DeviceUpdateStatus status : (Iterable<DeviceUpdateStatus>) statuses::iterator) {
+                consumer.accept(toUpdateResponse(status));
+                count++;
+            }
         }
-        logger.info("Found {} devices with {} update type", devicesWithSpecifiedUpdateType.size(), type);
+        logger.info("Streamed {} devices with {} update type", count, updateType);
 
-        return devicesWithSpecifiedUpdateType;
+        return count;
     }
 
     public UpdateResponseDto updateDevice (Long id) {
@@ -79,20 +142,72 @@ public class UpdateService {
         return new UpdateResponseDto(id, updateData.userId(), false, updateData.latestVersion(), updateData.latestVersion(), UpdateType.UNAVAILABLE);
     }
 
-    public List<UpdateResponseDto> forceUpdateAllOutdated () {
-        int successCount = 0;
-        List <UpdateResponseDto> response = new ArrayList<>();
-        List <UpdateResponseDto> outdatedDevices = getDevicesWithUpdateType("MANDATORY");
-        outdatedDevices.addAll(getDevicesWithUpdateType("DEPRECATED"));
+    public List<RolloutResultDto> forceUpdateAllOutdated () {
+        Map <PlatformType, RolloutResultDto> results = new EnumMap<>(PlatformType.class);
+        ChunkResultDto chunk = forceUpdateChunk(null, results);
+        while (chunk.lastId() != null) {
+            chunk = forceUpdateChunk(chunk.lastId(), results);
+        }
+        logger.info("Updated devices to the last version: {}", results.values());
+
+        return new ArrayList<>(results.values());
+    }
 
-        for (UpdateResponseDto updateData : outdatedDevices) {
-            try {response.add(updateDevice(updateData.userDeviceId())); successCount++;}
-            catch (Exception e) {
-                logger.warn("Failed to update device {}", updateData.userDeviceId());
+    public ChunkResultDto forceUpdateChunk (Long afterId) {
+        return forceUpdateChunk(afterId, new EnumMap<>(PlatformType.class));
+    }
+
+    public List<UpdateResponseDto> getOutdatedDevicesAfter (Long afterId) {
+        return userDeviceService.getUpdateStatusAfter(OUTDATED_TYPES, afterId == null ? 0L : afterId, rolloutChunkSize)
+            .stream().map(this::toUpdateResponse).toList();
+    }
+
+    private ChunkResultDto forceUpdateChunk (Long afterId, Map<PlatformType, RolloutResultDto> results) {
+        List <DeviceUpdateStatus> chunk = userDeviceService.getUpdateStatusAfter(OUTDATED_TYPES, afterId == null ? 0L : afterId, rolloutChunkSize);
+        if (chunk.isEmpty()) return new ChunkResultDto(0, 0, 0, null);
+
+        Map <PlatformType, AppVersionResponseDto> latestVersions = appVersionService.getLatestVersions();
+        Map <String, List<Long>> idsByVersion = new HashMap<>();
+        Map <String, PlatformType> platformByVersion = new HashMap<>();
+        for (DeviceUpdateStatus status : chunk) {
+            AppVersionResponseDto latestVersion = latestVersions.get(status.getPlatform());
+            if (latestVersion == null || status.getCurrentVersion().equals(latestVersion.version())) continue;
+            idsByVersion.computeIfAbsent(latestVersion.version(), v -> new ArrayList<>()).add(status.getDeviceId());
+            platformByVersion.put(latestVersion.version(), status.getPlatform());
+        }
+
+        int updated = 0;
+        int failed = 0;
+        try {
+            for (Map.Entry<String, Integer> entry : userDeviceService.updateVersionInBulk(idsByVersion).entrySet()) {
+                PlatformType platform = platformByVersion.get(entry.getKey());
+                results.merge(platform, new RolloutResultDto(platform, entry.getKey(), entry.getValue()),
+                    (a, b) -> new RolloutResultDto(a.platform(), a.latestVersion(), a.updatedCount() + b.updatedCount()));
+                updated += entry.getValue();
             }
         }
-        logger.info("Updated {} devices to the last version", successCount);
+        catch (Exception e) {
+            failed = chunk.size();
+            logger.warn("Failed to update devices {} - {}: {}", chunk.get(0).getDeviceId(), chunk.get(chunk.size() - 1).getDeviceId(),
+                e.getMessage());
+        }
 
-        return response;
+        return new ChunkResultDto(chunk.size(), updated, failed, chunk.get(chunk.size() - 1).getDeviceId());
+    }
+
+    public UpdateType parseUpdateType (String type) {
+        try {return UpdateType.valueOf(type.toUpperCase());}
+        catch (IllegalArgumentException e) {throw new IllegalArgumentException("Invalid update type is provided. Must be one of "+
+            "UNAVAILABLE, OPTIONAL, MANDATORY, DEPRECATED.");}
+    }
+
+    private UpdateResponseDto toUpdateResponse (DeviceUpdateStatus status) {
+        if (status.getUpdateType() == UpdateType.UNAVAILABLE) {
+            return new UpdateResponseDto(status.getDeviceId(), status.getUserId(), false,
+                status.getCurrentVersion(), status.getCurrentVersion(), UpdateType.UNAVAILABLE);
+        }
+        AppVersionResponseDto latestVersion = appVersionService.getLatestVersions().get(status.getPlatform());
+        return new UpdateResponseDto(status.getDeviceId(), status.getUserId(), true,
+            status.getCurrentVersion(), latestVersion == null ? null : latestVersion.version(), status.getUpdateType());
     }
 }
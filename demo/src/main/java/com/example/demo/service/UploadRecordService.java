@@ -0,0 +1,103 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.example.demo.dto.BackgroundJobResponseDto;
+import com.example.demo.dto.UploadResponseDto;
+import com.example.demo.enums.ImportMode;
+import com.example.demo.enums.JobStatus;
+import com.example.demo.enums.JobType;
+import com.example.demo.model.UploadRecord;
+import com.example.demo.repository.UploadRecordRepository;
+
+import lombok.RequiredArgsConstructor;
+
+@Service
+@RequiredArgsConstructor
+@Transactional (readOnly = true)
+public class UploadRecordService {
+    private final UploadRecordRepository uploadRecordRepository;
+    private final BackgroundJobService backgroundJobService;
+    private static final Logger logger = LoggerFactory.getLogger(UploadRecordService.class);
+
+    private static final Set<JobStatus> RETRYABLE = Set.of(JobStatus.FAILED, JobStatus.CANCELLED);
+
+    @Value("${upload.dedup.max-stored-errors}")
+    private int maxStoredErrors;
+
+    public MessageDigest newDigest () {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public String toHex (MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // Reads the whole file once. Imports hash the file while parsing it instead, and only
+    // call this when an earlier import of the same size makes a duplicate possible.
+    public String sha256 (MultipartFile file) {
+        MessageDigest digest = newDigest();
+        try (InputStream input = new DigestInputStream(file.getInputStream(), digest)) {
+            input.transferTo(OutputStream.nullOutputStream());
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Failed to read CSV file: " + e.getMessage());
+        }
+        return toHex(digest);
+    }
+
+    public boolean hasImportOfSize (long fileSize, JobType type, ImportMode mode) {
+        return uploadRecordRepository.existsByFileSizeAndTypeAndModeAndFailureCountAndJobIdIsNull(fileSize, type, mode, 0);
+    }
+
+    // Only a successful import in the same mode counts: a file with failed rows can be imported again
+    // once the data is fixed, and a BATCH import doesn't stand in for an UPSERT re-sync
+    public Optional<UploadResponseDto> findImported (String sha256, JobType type, ImportMode mode) {
+        return uploadRecordRepository.findFirstBySha256AndTypeAndModeAndFailureCountAndJobIdIsNullOrderByIdDesc(sha256, type, mode, 0)
+            .map(record -> new UploadResponseDto(record.getTotalRows(), record.getSuccessCount(), record.getFailureCount(),
+                record.getErrors() == null ? List.of() : List.of(record.getErrors().split("\n"))));
+    }
+
+    // A job for the same file is reused unless it failed or was cancelled
+    public Optional<BackgroundJobResponseDto> findSubmittedJob (String sha256, JobType type) {
+        return uploadRecordRepository.findFirstBySha256AndTypeAndJobIdIsNotNullOrderByIdDesc(sha256, type)
+            .map(record -> backgroundJobService.getById(record.getJobId()))
+            .filter(job -> !RETRYABLE.contains(job.status()));
+    }
+
+    @Transactional
+    public void recordImport (String sha256, JobType type, ImportMode mode, String filename, long fileSize, UploadResponseDto response) {
+        List <String> errors = response.errorList().subList(0, Math.min(response.errorList().size(), maxStoredErrors));
+        uploadRecordRepository.save(new UploadRecord(null, sha256, type, mode, filename, fileSize, null,
+            response.totalRows(), response.successCount(), response.failureCount(),
+            errors.isEmpty() ? null : String.join("\n", errors), null));
+        logger.info("Recorded import of {} ({})", filename, sha256);
+    }
+
+    @Transactional
+    public void recordJob (String sha256, JobType type, String filename, long fileSize, Long jobId) {
+        uploadRecordRepository.save(new UploadRecord(null, sha256, type, null, filename, fileSize, jobId, 0, 0, 0, null, null));
+        logger.info("Recorded job {} for {} ({})", jobId, filename, sha256);
+    }
+}
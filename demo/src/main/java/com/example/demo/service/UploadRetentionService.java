@@ -0,0 +1,151 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import com.example.demo.dto.BackgroundJobResponseDto;
+
+import lombok.RequiredArgsConstructor;
+
+@Service
+@RequiredArgsConstructor
+public class UploadRetentionService {
+    private final BackgroundJobService backgroundJobService;
+    private static final Logger logger = LoggerFactory.getLogger(UploadRetentionService.class);
+
+    // Archived uploads are prefixed with their timestamp, which keeps the container's
+    // own multipart temp files in the same directory out of the sweep
+    private static final Pattern ARCHIVED_FILE = Pattern.compile("^\\d{4}-\\d{2}-\\d{2}T\\d{2}-\\d{2}.*_.+");
+
+    @Value("${upload.archive.location}")
+    private String archiveLocation;
+
+    @Value("${upload.retention.compress-after}")
+    private Duration compressAfter;
+
+    @Value("${upload.retention.delete-after}")
+    private Duration deleteAfter;
+
+    @Value("${upload.retention.max-total-size}")
+    private DataSize maxTotalSize;
+
+    private record ArchivedFile(Path path, Instant modified, long size) {
+    }
+
+    // Files still needed by a queued or running import job are never touched
+    @Scheduled(cron = "${upload.retention.cron}")
+    public synchronized void sweep() {
+        Path archiveDirectory = Paths.get(archiveLocation).toAbsolutePath().normalize();
+        if (!Files.isDirectory(archiveDirectory)) return;
+
+        Set <Path> inUse = backgroundJobService.getUnfinished().stream()
+            .map(BackgroundJobResponseDto::payload).filter(Objects::nonNull)
+            .map(payload -> Paths.get(payload).toAbsolutePath().normalize())
+            .collect(Collectors.toSet());
+        Instant now = Instant.now();
+        int compressed = 0;
+        int deleted = 0;
+
+        List <ArchivedFile> files = new ArrayList<>();
+        for (ArchivedFile file : list(archiveDirectory)) {
+            if (inUse.contains(file.path())) continue;
+
+            if (file.modified().isBefore(now.minus(deleteAfter))) {
+                if (delete(file)) deleted++;
+            }
+            else if (file.modified().isBefore(now.minus(compressAfter)) && !file.path().toString().endsWith(".gz")) {
+                ArchivedFile gzipped = compress(file);
+                files.add(gzipped);
+                if (gzipped != file) compressed++;
+            }
+            else {
+                files.add(file);
+            }
+        }
+
+        long totalSize = files.stream().mapToLong(ArchivedFile::size).sum();
+        files.sort(Comparator.comparing(ArchivedFile::modified));
+        for (ArchivedFile file : files) {
+            if (totalSize <= maxTotalSize.toBytes()) break;
+            if (delete(file)) {
+                totalSize -= file.size();
+                deleted++;
+            }
+        }
+        logger.info("Upload retention sweep finished. Compressed: {}, Deleted: {}, Archive size: {} bytes",
+            compressed, deleted, totalSize);
+    }
+
+    private List<ArchivedFile> list(Path directory) {
+        try (Stream<Path> paths = Files.list(directory)) {
+            List <ArchivedFile> files = new ArrayList<>();
+            for (Path path : paths.toList()) {
+                if (!Files.isRegularFile(path) || !ARCHIVED_FILE.matcher(path.getFileName().toString()).matches()) continue;
+                files.add(new ArchivedFile(path, Files.getLastModifiedTime(path).toInstant(), Files.size(path)));
+            }
+            return files;
+        }
+        catch (IOException e) {
+            logger.error("Failed to list archived uploads in {}", directory, e);
+            return List.of();
+        }
+    }
+
+    // Keeps the original modification time so that age-based deletion still counts from the upload
+    private ArchivedFile compress(ArchivedFile file) {
+        Path target = file.path().resolveSibling(file.path().getFileName() + ".gz");
+        try {
+            try (InputStream input = Files.newInputStream(file.path());
+                 OutputStream output = new GZIPOutputStream(Files.newOutputStream(target))) {
+                input.transferTo(output);
+            }
+            Files.setLastModifiedTime(target, FileTime.from(file.modified()));
+            Files.delete(file.path());
+            return new ArchivedFile(target, file.modified(), Files.size(target));
+        }
+        catch (IOException e) {
+            logger.error("Failed to compress archived upload {}", file.path(), e);
+            try {
+                Files.deleteIfExists(target);
+            }
+            catch (IOException ignored) {
+            }
+            return file;
+        }
+    }
+
+    private boolean delete(ArchivedFile file) {
+        try {
+            Files.deleteIfExists(file.path());
+            logger.debug("Deleted archived upload {}", file.path());
+            return true;
+        }
+        catch (IOException e) {
+            logger.error("Failed to delete archived upload {}", file.path(), e);
+            return false;
+        }
+    }
+}
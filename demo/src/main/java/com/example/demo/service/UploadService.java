@@ -2,29 +2,42 @@ package com.example.demo.service;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
-import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import com.example.demo.dto.AppVersionRequestDto;
+import com.example.demo.dto.BackgroundJobResponseDto;
 import com.example.demo.dto.UploadResponseDto;
-import com.example.demo.dto.UserDeviceRequestDto;
-import com.example.demo.enums.PlatformType;
-import com.example.demo.enums.UpdateType;
+import com.example.demo.enums.ImportMode;
+import com.example.demo.enums.JobType;
+import com.example.demo.mapper.CsvRecordMapper;
+import com.example.demo.util.Decompression;
+import com.example.demo.util.TeeInputStream;
 
 import lombok.RequiredArgsConstructor;
 
@@ -35,131 +48,280 @@ public class UploadService {
 
     private final AppVersionService appVersionService;
     private final UserDeviceService userDeviceService;
+    private final CopyImportService copyImportService;
+    private final ImportValidator importValidator;
+    private final UploadRecordService uploadRecordService;
+    private final ThreadPoolTaskExecutor importExecutor;
+    private final JobRunner jobRunner;
 
-    @Value("${spring.servlet.multipart.location}")
-    private String uploadLocation;
+    private static final Set<String> CSV_CONTENT_TYPES = Set.of("text/csv", "application/csv", "text/plain", "application/vnd.ms-excel");
+    private static final Set<String> GZIP_CONTENT_TYPES = Set.of("application/gzip", "application/x-gzip");
+
+    @Value("${upload.archive.enabled}")
+    private boolean archiveEnabled;
+
+    @Value("${upload.archive.location}")
+    private String archiveLocation;
+
+    @Value("${upload.dedup.enabled}")
+    private boolean dedupEnabled;
+
+    @Value("${upload.import.chunk-size}")
+    private int importChunkSize;
 
     private void validateFile(MultipartFile file) {
         if (file.isEmpty()) {
             throw new IllegalArgumentException("File is empty");
         }
         String filename = file.getOriginalFilename();
-        if (filename == null || !filename.toLowerCase().endsWith(".csv")) {
-            throw new IllegalArgumentException("The system supports only CSV files");
+        String contentType = file.getContentType() == null ? "" : file.getContentType().split(";")[0].trim().toLowerCase();
+        boolean supported = CSV_CONTENT_TYPES.contains(contentType) || GZIP_CONTENT_TYPES.contains(contentType);
+        if (!supported && (contentType.isEmpty() || contentType.equals("application/octet-stream"))) {
+            supported = filename != null && (filename.toLowerCase().endsWith(".csv") || filename.toLowerCase().endsWith(".csv.gz"));
+        }
+        if (!supported) {
+            throw new IllegalArgumentException("The system supports only CSV files, optionally gzip-compressed");
         }
-        logger.debug("File validation passed: {}", filename);
+        logger.debug("File validation passed: {} ({})", filename, contentType);
     }
 
-    private Path saveFile(MultipartFile file) throws IOException {
+    // Parses the upload straight from the multipart stream. When archiving is on,
+    // the bytes are copied to the archive while they are being parsed. Gzip uploads
+    // are archived as they are and decompressed on the fly. A digest, if given, is
+    // updated with the raw bytes in the same pass.
+    private InputStream openUpload(MultipartFile file, MessageDigest digest) throws IOException {
+        InputStream input = digest == null ? file.getInputStream() : new DigestInputStream(file.getInputStream(), digest);
+        if (!archiveEnabled) {
+            // The tee drains the bytes a gzip reader leaves unread on close, so the digest covers the whole file
+            return Decompression.decompress(digest == null ? input : new TeeInputStream(input, OutputStream.nullOutputStream()));
+        }
+
+        Path targetLocation = archivePath(file);
+        logger.info("Archiving file to: {}", targetLocation);
+        return Decompression.decompress(new TeeInputStream(input, Files.newOutputStream(targetLocation)));
+    }
+
+    private Path archivePath(MultipartFile file) throws IOException {
         String timestamp = LocalDateTime.now().toString().replaceAll(":", "-");
         String filename = timestamp + "_" + file.getOriginalFilename();
-        Path targetLocation = Paths.get(uploadLocation).toAbsolutePath().normalize().resolve(filename);
+        Path archiveDirectory = Paths.get(archiveLocation).toAbsolutePath().normalize();
+        Files.createDirectories(archiveDirectory);
+        return archiveDirectory.resolve(filename);
+    }
 
-        Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
-        logger.info("File saved to: {}", targetLocation);
-        return targetLocation;
+    // Import jobs always keep the file in the archive, since an interrupted job resumes from it.
+    // The file is hashed while it is copied there, and the copy is dropped if the file was already submitted.
+    public BackgroundJobResponseDto submitImportJob(MultipartFile file, JobType type, boolean force) {
+        validateFile(file);
+        try {
+            Path targetLocation = archivePath(file);
+            MessageDigest digest = dedupEnabled ? uploadRecordService.newDigest() : null;
+            try (InputStream input = digest == null ? file.getInputStream() : new DigestInputStream(file.getInputStream(), digest)) {
+                Files.copy(input, targetLocation);
+            }
+            String sha256 = digest == null ? null : uploadRecordService.toHex(digest);
+            if (sha256 != null && !force) {
+                Optional <BackgroundJobResponseDto> submitted = uploadRecordService.findSubmittedJob(sha256, type);
+                if (submitted.isPresent()) {
+                    Files.deleteIfExists(targetLocation);
+                    logger.info("File {} was already submitted as job {}", file.getOriginalFilename(), submitted.get().id());
+                    return submitted.get();
+                }
+            }
+            logger.info("File saved to: {}", targetLocation);
+            BackgroundJobResponseDto job = jobRunner.submit(type, targetLocation.toString());
+            if (sha256 != null) uploadRecordService.recordJob(sha256, type, file.getOriginalFilename(), file.getSize(), job.id());
+            return job;
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Failed to save CSV file: " + e.getMessage());
+        }
     }
 
-    public UploadResponseDto importAppVersions (MultipartFile file) {
-        int successCount = 0;
-        int failureCount = 0;
-        List <String> errorList = new ArrayList<>();
-        
+    // A file that was already imported successfully in the same mode is not imported again,
+    // the earlier result is returned instead. The file is hashed while it is parsed. It is only
+    // hashed up front when an earlier import has the same size, since only then can it be a duplicate.
+    private UploadResponseDto importOnce(MultipartFile file, JobType type, ImportMode mode, boolean force,
+        Function<MessageDigest, UploadResponseDto> importer) {
+        if (!dedupEnabled) return importer.apply(null);
+
+        String sha256 = null;
+        if (!force && uploadRecordService.hasImportOfSize(file.getSize(), type, mode)) {
+            sha256 = uploadRecordService.sha256(file);
+            Optional <UploadResponseDto> imported = uploadRecordService.findImported(sha256, type, mode);
+            if (imported.isPresent()) {
+                logger.info("File {} was already imported, returning the earlier result", file.getOriginalFilename());
+                return imported.get();
+            }
+        }
+        MessageDigest digest = sha256 == null ? uploadRecordService.newDigest() : null;
+        UploadResponseDto response = importer.apply(digest);
+        if (digest != null) sha256 = uploadRecordService.toHex(digest);
+        uploadRecordService.recordImport(sha256, type, mode, file.getOriginalFilename(), file.getSize(), response);
+        return response;
+    }
+
+    public UploadResponseDto importAppVersions (MultipartFile file, ImportMode mode, boolean force) {
         try {validateFile(file);}
         catch (IllegalArgumentException e) {
-            errorList.add(file.getOriginalFilename() + " : " + e.getMessage());
-            throw new IllegalArgumentException("File validation failed");
+            throw new IllegalArgumentException("File validation failed: " + file.getOriginalFilename() + " : " + e.getMessage());
         }
 
-        try {
-            Path savedFile = saveFile(file);
-            CSVFormat format =
-            CSVFormat.DEFAULT.builder().setHeader().setSkipHeaderRecord(true).setIgnoreHeaderCase(true).setTrim(true).get();
+        if (mode == ImportMode.COPY) {
+            throw new IllegalArgumentException("COPY mode is only supported for User Devices");
+        }
+
+        UploadResponseDto response = importOnce(file, JobType.IMPORT_APP_VERSIONS, mode, force, digest -> mode == ImportMode.UPSERT
+            ? importRows(file, digest, importValidator.appVersionUpsertMapper(),
+                appVersionService::upsertAll, request -> appVersionService.upsertAll(List.of(request)))
+            : importRows(file, digest, importValidator.appVersionMapper(),
+                appVersionService::createAll, appVersionService::create));
+        logger.info("AppVersion import completed. Success: {}, Failures: {}", response.successCount(), response.failureCount());
+
+        return response;
+    }
+
+    public UploadResponseDto importUserDevices(MultipartFile file, ImportMode mode, boolean force) {
+        try {validateFile(file);}
+        catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("File validation failed: " + file.getOriginalFilename() + " : " + e.getMessage());
+        }
+
+        UploadResponseDto response = importOnce(file, JobType.IMPORT_USER_DEVICES, mode, force, digest -> switch (mode) {
+            case COPY -> copyUserDevices(file, digest);
+            case UPSERT -> importRows(file, digest, importValidator.userDeviceUpsertMapper(),
+                userDeviceService::upsertAll, request -> userDeviceService.upsertAll(List.of(request)));
+            case BATCH -> importRows(file, digest, importValidator.userDeviceMapper(),
+                userDeviceService::createAll, userDeviceService::create);
+        });
+        logger.info("UserDevice import completed. Success: {}, Failures: {}", response.successCount(), response.failureCount());
+
+        return response;
+    }
+
+    private UploadResponseDto copyUserDevices(MultipartFile file, MessageDigest digest) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(openUpload(file, digest), StandardCharsets.UTF_8))) {
+            return copyImportService.importUserDevices(reader, file.getOriginalFilename());
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Failed to process CSV file: " + e.getMessage());
+        }
+    }
 
-            try (BufferedReader reader = Files.newBufferedReader(savedFile, StandardCharsets.UTF_8);
-                 CSVParser csvParser = format.parse(reader)) {
-                    int rowNumber = 1;
+    private record Row<T>(int rowNumber, T value) {
+    }
+
+    private record RowError(int rowNumber, String message) {
+    }
+
+    private record ChunkOutcome(int successCount, List<RowError> errors) {
+    }
+
+    // The calling thread only parses and cuts the file into chunks. Mapping, validation and writing
+    // run on the import executor, whose bounded queue blocks the parser while all workers are busy.
+    private <T> UploadResponseDto importRows(MultipartFile file, MessageDigest digest, Function<CSVRecord, T> mapper,
+        Function<List<T>, Integer> batchWriter, Consumer<T> rowWriter) {
+        List <Future<ChunkOutcome>> outcomes = new ArrayList<>();
+        int totalRows = 0;
+
+        try {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(openUpload(file, digest), StandardCharsets.UTF_8));
+                 CSVParser csvParser = CsvRecordMapper.FORMAT.parse(reader)) {
+                    List <Row<CSVRecord>> chunk = new ArrayList<>();
                     for (CSVRecord record : csvParser) {
-                        try {
-                            AppVersionRequestDto request = new AppVersionRequestDto(
-                                record.get("version"),
-                                PlatformType.valueOf(record.get("platform").toUpperCase()),
-                                UpdateType.valueOf(record.get("updateType")),
-                                Boolean.parseBoolean(record.get("active"))
-                            );
-
-                            appVersionService.create(request);
-                            successCount++;
-                        }
-                        catch (Exception e) {
-                            failureCount++;
-                            errorList.add(file.getOriginalFilename() + " : " + e.getMessage());
-                            logger.warn("Failed to import row {}: {}", rowNumber, e);
+                        chunk.add(new Row<>(++totalRows, record));
+                        if (chunk.size() >= importChunkSize) {
+                            outcomes.add(submitChunk(chunk, mapper, batchWriter, rowWriter));
+                            chunk = new ArrayList<>();
                         }
-                        rowNumber++;
                     }
+                    if (!chunk.isEmpty()) outcomes.add(submitChunk(chunk, mapper, batchWriter, rowWriter));
             }
-
-            logger.info("AppVersion import completed. Success: {}, Failures: {}", successCount, failureCount);
-            return new UploadResponseDto(successCount + failureCount,
-                successCount,
-                failureCount,
-                errorList
-            );
         }
         catch (IOException e) {
             throw new RuntimeException("Failed to process CSV file: " + e.getMessage());
         }
-    }
 
-    public UploadResponseDto importUserDevices(MultipartFile file) {
         int successCount = 0;
-        int failureCount = 0;
-        List <String> errorList = new ArrayList<>();
+        List <RowError> errors = new ArrayList<>();
+        for (ChunkOutcome outcome : awaitAll(outcomes)) {
+            successCount += outcome.successCount();
+            errors.addAll(outcome.errors());
+        }
+        errors.sort(Comparator.comparingInt(RowError::rowNumber));
 
-        try {validateFile(file);}
-        catch (IllegalArgumentException e) {
-            errorList.add(file.getOriginalFilename() + " : " + e.getMessage());
+        List <String> errorList = new ArrayList<>();
+        for (RowError error : errors) {
+            errorList.add(file.getOriginalFilename() + " : row " + error.rowNumber() + " : " + error.message());
         }
+        return new UploadResponseDto(totalRows,
+            successCount,
+            totalRows - successCount,
+            errorList
+        );
+    }
 
-        try {
-            Path savedFile = saveFile(file);
-            CSVFormat format =
-            CSVFormat.DEFAULT.builder().setHeader().setSkipHeaderRecord(true).setIgnoreHeaderCase(true).setTrim(true).get();
+    private <T> Future<ChunkOutcome> submitChunk(List<Row<CSVRecord>> chunk, Function<CSVRecord, T> mapper,
+        Function<List<T>, Integer> batchWriter, Consumer<T> rowWriter) {
+        return importExecutor.submit(() -> importChunk(chunk, mapper, batchWriter, rowWriter));
+    }
 
-            try (BufferedReader reader = Files.newBufferedReader(savedFile, StandardCharsets.UTF_8);
-                 CSVParser csvParser = format.parse(reader)) {
-                    int rowNumber = 1;
-                    for (CSVRecord record : csvParser) {
-                        try {
-                            UserDeviceRequestDto request = new UserDeviceRequestDto(
-                                Long.parseLong(record.get("userId")),
-                                PlatformType.valueOf(record.get("platform").toUpperCase()),
-                                record.get("currentVersion")
-                            );
-
-                            userDeviceService.create(request);
-                            successCount++;
-                        }
-                        catch (Exception e) {
-                            failureCount++;
-                            errorList.add(file.getOriginalFilename() + " : " + e.getMessage());
-                            logger.warn("Failed to import row {}: {}", rowNumber, e);
-                        }
-                        rowNumber++;
-                    }
+    private List<ChunkOutcome> awaitAll(List<Future<ChunkOutcome>> outcomes) {
+        List <ChunkOutcome> results = new ArrayList<>();
+        try {
+            for (Future<ChunkOutcome> outcome : outcomes) {
+                results.add(outcome.get());
             }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("CSV import was interrupted");
+        }
+        catch (ExecutionException e) {
+            throw new RuntimeException("Failed to process CSV file: " + e.getCause().getMessage());
+        }
+        return results;
+    }
 
-            logger.info("UserDevice import completed. Success: {}, Failures: {}", successCount, failureCount);
+    // Rows are written as one JDBC batch. If the batch fails, its rows are written
+    // again one by one so that only the bad rows are reported.
+    private <T> ChunkOutcome importChunk(List<Row<CSVRecord>> chunk, Function<CSVRecord, T> mapper,
+        Function<List<T>, Integer> batchWriter, Consumer<T> rowWriter) {
+        List <RowError> errors = new ArrayList<>();
+        List <Row<T>> mapped = new ArrayList<>();
+        for (Row<CSVRecord> row : chunk) {
+            try {
+                mapped.add(new Row<>(row.rowNumber(), mapper.apply(row.value())));
+            }
+            catch (Exception e) {
+                errors.add(rowError(row.rowNumber(), e));
+            }
+        }
+        if (mapped.isEmpty()) return new ChunkOutcome(0, errors);
 
-            return new UploadResponseDto(successCount + failureCount,
-                successCount,
-                failureCount,
-                errorList
-            );
+        try {
+            return new ChunkOutcome(batchWriter.apply(mapped.stream().map(Row::value).toList()), errors);
         }
-        catch (IOException e) {
-            throw new RuntimeException("Failed to process CSV file: " + e.getMessage());
+        catch (Exception e) {
+            logger.warn("Failed to import rows {} - {} in batch, retrying them one by one: {}",
+                mapped.get(0).rowNumber(), mapped.get(mapped.size() - 1).rowNumber(), e.getMessage());
+        }
+
+        int successCount = 0;
+        for (Row<T> row : mapped) {
+            try {
+                rowWriter.accept(row.value());
+                successCount++;
+            }
+            catch (Exception e) {
+                errors.add(rowError(row.rowNumber(), e));
+            }
         }
+        return new ChunkOutcome(successCount, errors);
+    }
+
+    private RowError rowError(int rowNumber, Exception e) {
+        logger.warn("Failed to import row {}: {}", rowNumber, e.getMessage());
+        return new RowError(rowNumber, e.getMessage());
     }
 }
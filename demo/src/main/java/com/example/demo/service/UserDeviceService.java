@@ -2,16 +2,27 @@ package com.example.demo.service;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.annotation.PostConstruct;
@@ -21,11 +32,15 @@ import lombok.RequiredArgsConstructor;
 import com.example.demo.dto.AppVersionResponseDto;
 import com.example.demo.dto.UserDeviceRequestDto;
 import com.example.demo.dto.UserDeviceResponseDto;
+import com.example.demo.dto.UserDeviceUpsertDto;
 import com.example.demo.enums.PlatformType;
+import com.example.demo.enums.UpdateType;
 import com.example.demo.mapper.UserDeviceMapper;
 import com.example.demo.model.UserDevice;
 import com.example.demo.repository.UserDeviceRepository;
+import com.example.demo.repository.projection.DeviceUpdateStatus;
 import com.example.demo.specifications.UserDeviceSpecifications;
+import com.example.demo.util.VersionOrder;
 
 @Service
 @RequiredArgsConstructor
@@ -33,7 +48,12 @@ import com.example.demo.specifications.UserDeviceSpecifications;
 public class UserDeviceService {
     private final UserDeviceRepository userDeviceRepository;
     private final AppVersionService appVersionService;
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheManager cacheManager;
     private static final Logger logger = LoggerFactory.getLogger(UserDeviceService.class);
+
+    @Value("${device.checkin.batch-size}")
+    private int checkInBatchSize;
     
     @PostConstruct
     public void init() {}
@@ -59,11 +79,56 @@ public class UserDeviceService {
         logger.info("Creating new UserDevice for user: {} ", request.userId());
 
         UserDevice newUserDevice = userDeviceRepository.save(new UserDevice(null, request.userId(), null,
-        request.platform(), request.currentVersion(), null, null));
+        request.platform(), request.currentVersion(), null, null,
+        appVersionService.getUpdateType(request.currentVersion(), request.platform())));
         logger.info("Successfully created UserDevice with ID: {} for user: {}", newUserDevice.getId(), request.userId());
         return UserDeviceMapper.userDeviceToUserDeviceResponseDto(newUserDevice);
     }
 
+    @CacheEvict (value = "userDevices", allEntries = true)
+    @Transactional
+    public int createAll (List<UserDeviceRequestDto> requests) {
+        List <UserDevice> newUserDevices = new ArrayList<>();
+        for (UserDeviceRequestDto request : requests) {
+            newUserDevices.add(new UserDevice(null, request.userId(), null, request.platform(), request.currentVersion(), null, null,
+            appVersionService.getUpdateType(request.currentVersion(), request.platform())));
+        }
+        userDeviceRepository.saveAll(newUserDevices);
+        logger.info("Successfully created {} UserDevices in batch", newUserDevices.size());
+        return newUserDevices.size();
+    }
+
+    // One INSERT ... ON CONFLICT per batch, keyed by the device id. Every id must exist, so a repeated
+    // sync never adds devices and only updates the ones where something changed.
+    @CacheEvict (value = {"userDevices", "userDevice"}, allEntries = true)
+    @Transactional
+    public int upsertAll (List<UserDeviceUpsertDto> requests) {
+        Long[] ids = requests.stream().map(UserDeviceUpsertDto::id).toArray(Long[]::new);
+        List <Long> missingIds = jdbcTemplate.queryForList("SELECT u.id FROM unnest(?::bigint[]) AS u(id) " +
+            "WHERE NOT EXISTS (SELECT 1 FROM user_device d WHERE d.id = u.id)", Long.class, (Object) ids);
+        if (!missingIds.isEmpty()) {
+            throw new EntityNotFoundException("There's no UserDevice with ID: " + missingIds.get(0));
+        }
+
+        List <Boolean> changed = jdbcTemplate.queryForList(
+            "INSERT INTO user_device (id, user_id, platform, current_version, last_seen, update_status) " +
+            "SELECT u.id, u.user_id, u.platform, u.current_version, LOCALTIMESTAMP, v.update_type " +
+            "FROM unnest(?::bigint[], ?::bigint[], ?::text[], ?::text[]) AS u(id, user_id, platform, current_version) " +
+            "LEFT JOIN app_version v ON v.version = u.current_version AND v.platform = u.platform " +
+            "ON CONFLICT (id) DO UPDATE SET user_id = EXCLUDED.user_id, platform = EXCLUDED.platform, " +
+            "current_version = EXCLUDED.current_version, update_status = EXCLUDED.update_status, last_seen = EXCLUDED.last_seen " +
+            "WHERE (user_device.user_id, user_device.platform, user_device.current_version) IS DISTINCT FROM " +
+            "(EXCLUDED.user_id, EXCLUDED.platform, EXCLUDED.current_version) RETURNING (xmax = 0)", Boolean.class,
+            ids,
+            requests.stream().map(UserDeviceUpsertDto::userId).toArray(Long[]::new),
+            requests.stream().map(request -> request.platform().name()).toArray(String[]::new),
+            requests.stream().map(UserDeviceUpsertDto::currentVersion).toArray(String[]::new));
+
+        long inserted = changed.stream().filter(Boolean::booleanValue).count();
+        logger.info("Upserted {} UserDevices in batch. Inserted: {}, updated: {}", requests.size(), inserted, changed.size() - inserted);
+        return requests.size();
+    }
+
     @Cacheable (value = "userDevices", key = "#id")
     public UserDeviceResponseDto getById(Long id) {
         UserDevice userDevice = userDeviceRepository.findById(id).orElse(null);
@@ -75,6 +140,16 @@ public class UserDeviceService {
         throw new EntityNotFoundException("There's no UserDevice with ID: " + id.toString());
     }
 
+    public List<UserDeviceResponseDto> getAllById(Collection<Long> ids) {
+        List <UserDeviceResponseDto> response = new ArrayList<>();
+        for (UserDevice userDevice : userDeviceRepository.findAllById(ids)) {
+            response.add(UserDeviceMapper.userDeviceToUserDeviceResponseDto(userDevice));
+        }
+        logger.info("Successfully retrieved {} of {} requested UserDevices", response.size(), ids.size());
+
+        return response;
+    }
+
     @Caching (evict = {
         @CacheEvict(value = "userDevices", allEntries = true),
         @CacheEvict(value = {"userDevices", "userDevice"}, key = "#id")
@@ -87,6 +162,7 @@ public class UserDeviceService {
             existingUserDevice.setUserId(request.userId());
             existingUserDevice.setPlatform(request.platform());
             existingUserDevice.setCurrentVersion(request.currentVersion());
+            existingUserDevice.setUpdateStatus(appVersionService.getUpdateType(request.currentVersion(), request.platform()));
             existingUserDevice.setLastSeen(LocalDateTime.now());
 
             UserDevice savedDevice = userDeviceRepository.save(existingUserDevice);
@@ -124,6 +200,7 @@ public class UserDeviceService {
             logger.debug("Values before update - userId: {}, platform: {}, currentVersion: {}, lastSeen: {}", 
                         existingUserDevice.getUserId(), existingUserDevice.getPlatform(), existingUserDevice.getCurrentVersion(), existingUserDevice.getLastSeen());
             existingUserDevice.setCurrentVersion(version);
+            existingUserDevice.setUpdateStatus(appVersionService.getUpdateType(version, existingUserDevice.getPlatform()));
             existingUserDevice.setLastSeen(LocalDateTime.now());
 
             UserDevice savedDevice = userDeviceRepository.save(existingUserDevice);
@@ -137,6 +214,42 @@ public class UserDeviceService {
         return UserDeviceMapper.userDeviceToUserDeviceResponseDto(updated);
     }
 
+    // Runs in a savepoint of the caller's job transaction: a failed chunk is rolled back on its own
+    // without marking the job rollback-only, while a successful one commits together with its checkpoint.
+    // Goes through JdbcTemplate because a failed JPA query marks the whole transaction rollback-only.
+    @CacheEvict (value = "userDevices", allEntries = true)
+    @Transactional (propagation = Propagation.NESTED)
+    public Map<String, Integer> updateVersionInBulk (Map<String, List<Long>> idsByVersion) {
+        LocalDateTime now = LocalDateTime.now();
+        Map <String, Integer> updatedByVersion = new HashMap<>();
+        idsByVersion.forEach((version, ids) -> updatedByVersion.put(version, jdbcTemplate.update(
+            "UPDATE user_device d SET current_version = ?, last_seen = ?, update_status = " +
+            "(SELECT v.update_type FROM app_version v WHERE v.version = ? AND v.platform = d.platform) WHERE d.id = ANY(?::bigint[])",
+            version, now, version, ids.toArray(Long[]::new))));
+        logger.info("Successfully updated AppVersion on UserDevices in bulk: {}", updatedByVersion);
+        return updatedByVersion;
+    }
+
+    // A newer lastSeen written by a version change is never overwritten by an older buffered heartbeat
+    @Transactional
+    public void updateLastSeenInBatch (Map<Long, LocalDateTime> lastSeenById) {
+        jdbcTemplate.batchUpdate("UPDATE user_device SET last_seen = ? WHERE id = ? AND last_seen < ?",
+            lastSeenById.entrySet(), checkInBatchSize, (ps, entry) -> {
+                ps.setObject(1, entry.getValue());
+                ps.setLong(2, entry.getKey());
+                ps.setObject(3, entry.getValue());
+            });
+        logger.info("Successfully updated lastSeen on {} UserDevices in batch", lastSeenById.size());
+    }
+
+    // Only the flushed devices are evicted, so the rest of the cache stays warm. The cached device list
+    // is left alone: its lastSeen values catch up on the next device write instead of every flush.
+    public void evictCachedDevices (Collection<Long> ids) {
+        Cache cache = cacheManager.getCache("userDevices");
+        if (cache == null) return;
+        ids.forEach(cache::evict);
+    }
+
     //LOGIC
 
     public Page<UserDevice> getByFilter (Long userId, String version, Pageable pageable) {
@@ -145,20 +258,53 @@ public class UserDeviceService {
         return result;
     }
 
+    public Page<DeviceUpdateStatus> getUpdateStatusByUpdateType (UpdateType updateType, Pageable pageable) {
+        Page <DeviceUpdateStatus> result = userDeviceRepository.findUpdateStatusByUpdateStatus(updateType, latestPlatforms(), pageable);
+        logger.info("Classified UserDevices with {} update type. Found {} results", updateType, result.getNumberOfElements());
+        return result;
+    }
+
+    public Stream<DeviceUpdateStatus> streamUpdateStatusByUpdateType (UpdateType updateType) {
+        return userDeviceRepository.streamUpdateStatusByUpdateStatus(updateType, latestPlatforms());
+    }
+
+    public List<DeviceUpdateStatus> getUpdateStatusAfter (Collection<UpdateType> updateTypes, Long afterId, int limit) {
+        return userDeviceRepository.findUpdateStatusByUpdateStatusAfter(updateTypes, latestPlatforms(), afterId, Limit.of(limit));
+    }
+
     public List<UserDeviceResponseDto> getOutdatedDevices(Long userId, String platform) {
         AppVersionResponseDto latestAppVersion = appVersionService.getLatestVersion(platform);
-        PlatformType platformType;
-        try {platformType = PlatformType.valueOf(platform.toUpperCase());}
-        catch (IllegalArgumentException e) {throw new IllegalArgumentException("Invalid platform type provided. Must be one of the valid PlatformType enum values.");}
 
-        List<UserDevice> allUserDevices = userDeviceRepository.findAllByPlatformAndUserId(platformType, userId);
+        List<UserDevice> outdated = userDeviceRepository.findAllByUserIdAndPlatformBelowVersion(
+            userId, latestAppVersion.platform(), VersionOrder.of(latestAppVersion.version()));
         List<UserDeviceResponseDto> outdatedDevices = new ArrayList<>();
-        for (UserDevice userDevice : allUserDevices) {
-            if (!userDevice.getCurrentVersion().equals(latestAppVersion.version())) outdatedDevices.add(
-                UserDeviceMapper.userDeviceToUserDeviceResponseDto(userDevice)
-            );
+        for (UserDevice userDevice : outdated) {
+            outdatedDevices.add(UserDeviceMapper.userDeviceToUserDeviceResponseDto(userDevice));
         }
         logger.info("Found all outdated UserDevices for User: {} with Platform: {}", userId, platform);
         return outdatedDevices;
     }
+
+    public Page<UserDeviceResponseDto> getBelowVersion(String platform, String version, Pageable pageable) {
+        Page <UserDevice> result = userDeviceRepository.findAllByPlatformBelowVersion(parsePlatform(platform), VersionOrder.of(version), pageable);
+        logger.info("Found {} UserDevices below version {} for platform {}", result.getTotalElements(), version, platform);
+        return result.map(UserDeviceMapper::userDeviceToUserDeviceResponseDto);
+    }
+
+    public Page<UserDeviceResponseDto> getBetweenVersions(String platform, String from, String to, Pageable pageable) {
+        Page <UserDevice> result = userDeviceRepository.findAllByPlatformBetweenVersions(parsePlatform(platform),
+            VersionOrder.of(from), VersionOrder.of(to), pageable);
+        logger.info("Found {} UserDevices between versions {} and {} for platform {}", result.getTotalElements(), from, to, platform);
+        return result.map(UserDeviceMapper::userDeviceToUserDeviceResponseDto);
+    }
+
+    // Devices are only classified on platforms that have an active release to update to
+    private Set<PlatformType> latestPlatforms() {
+        return appVersionService.getLatestVersions().keySet();
+    }
+
+    private PlatformType parsePlatform(String platform) {
+        try {return PlatformType.valueOf(platform.toUpperCase());}
+        catch (IllegalArgumentException e) {throw new IllegalArgumentException("Invalid platform type provided. Must be one of the valid PlatformType enum values.");}
+    }
 }
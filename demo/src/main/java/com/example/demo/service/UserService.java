@@ -1,7 +1,12 @@
 package com.example.demo.service;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+
 import com.example.demo.repository.UserRepository;
+import com.example.demo.repository.projection.UserChatId;
 
 import lombok.RequiredArgsConstructor;
 
@@ -38,6 +43,15 @@ public class UserService {
         return UserMapper.userToUserDto(user);
     }
 
+    // Users without a Telegram chat ID are left out of the map
+    public Map<Long, Long> getTelegramChatIds(Collection<Long> ids) {
+        Map <Long, Long> chatIds = new HashMap<>();
+        for (UserChatId user : userRepository.findChatIdsByIdIn(ids)) {
+            if (user.getTelegramChatId() != null) chatIds.put(user.getUserId(), user.getTelegramChatId());
+        }
+        return chatIds;
+    }
+
     public UserDto getUserDto(String username) {
         User user = userRepository.findByUsername(username).orElseThrow(() -> {
             logger.warn("User with username '{}' not found", username);
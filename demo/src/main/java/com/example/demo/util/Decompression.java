@@ -0,0 +1,22 @@
+package com.example.demo.util;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+public class Decompression {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Detects gzip by its magic bytes rather than by file name, plain input is passed through
+    public static InputStream decompress (InputStream input) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(input, BUFFER_SIZE);
+        buffered.mark(2);
+        int first = buffered.read();
+        int second = buffered.read();
+        buffered.reset();
+
+        if (first == 0x1f && second == 0x8b) return new GZIPInputStream(buffered, BUFFER_SIZE);
+        return buffered;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.demo.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Position of the last notification of a page, sent to clients as an opaque URL-safe string
+public record NotificationCursor(LocalDateTime createdAt, Long id) {
+    public String encode () {
+        String value = createdAt + "_" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static NotificationCursor decode (String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String[] value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("_", 2);
+            return new NotificationCursor(LocalDateTime.parse(value[0]), Long.valueOf(value[1]));
+        }
+        catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.demo.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+// Copies every byte read from the source into a branch stream, e.g. to archive an upload while parsing it
+public class TeeInputStream extends FilterInputStream {
+    private final OutputStream branch;
+
+    public TeeInputStream (InputStream source, OutputStream branch) {
+        super(source);
+        this.branch = branch;
+    }
+
+    @Override
+    public int read () throws IOException {
+        int b = super.read();
+        if (b != -1) branch.write(b);
+        return b;
+    }
+
+    @Override
+    public int read (byte[] buffer, int offset, int length) throws IOException {
+        int count = super.read(buffer, offset, length);
+        if (count > 0) branch.write(buffer, offset, count);
+        return count;
+    }
+
+    @Override
+    public long skip (long n) throws IOException {
+        byte[] buffer = new byte[(int) Math.max(0, Math.min(n, 8192))];
+        long skipped = 0;
+        while (skipped < n) {
+            int count = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (count < 0) break;
+            skipped += count;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported () {
+        return false;
+    }
+
+    @Override
+    public void close () throws IOException {
+        try {
+            transferTo(OutputStream.nullOutputStream());
+        }
+        finally {
+            try {super.close();}
+            finally {branch.close();}
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.demo.util;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+public class TokenBucket {
+    private final double capacity;
+    private final double tokensPerNano;
+    private final LongSupplier nanoTime;
+    private double tokens;
+    private long refilledAt;
+
+    public TokenBucket (double capacity, double tokensPerSecond) {
+        this(capacity, tokensPerSecond, System::nanoTime);
+    }
+
+    public TokenBucket (double capacity, double tokensPerSecond, LongSupplier nanoTime) {
+        this.capacity = capacity;
+        this.tokensPerNano = tokensPerSecond / 1_000_000_000d;
+        this.nanoTime = nanoTime;
+        this.tokens = capacity;
+        this.refilledAt = nanoTime.getAsLong();
+    }
+
+    public synchronized boolean tryAcquire () {
+        refill();
+        if (tokens < 1) return false;
+        tokens--;
+        return true;
+    }
+
+    // Blocks until a token is available
+    public void acquire () throws InterruptedException {
+        while (!tryAcquire()) {
+            Thread.sleep(Math.max(1, timeToNextToken().toMillis()));
+        }
+    }
+
+    public synchronized Duration timeToNextToken () {
+        refill();
+        if (tokens >= 1) return Duration.ZERO;
+        return Duration.ofNanos((long) Math.ceil((1 - tokens) / tokensPerNano));
+    }
+
+    // Empties the bucket so that the next token only comes after the pause
+    public synchronized void pause (Duration pause) {
+        refill();
+        tokens = Math.min(tokens, 1 - pause.toNanos() * tokensPerNano);
+    }
+
+    public synchronized boolean isFull () {
+        refill();
+        return tokens >= capacity;
+    }
+
+    private void refill () {
+        long now = nanoTime.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+    }
+}
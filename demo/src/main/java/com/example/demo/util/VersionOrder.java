@@ -0,0 +1,40 @@
+package com.example.demo.util;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Suffixes mark the platform (a - Android, i - iOS) and are ignored, so 0.0.3 and 0.0.3a share an order.
+// Orders are only ever compared within one platform, where the suffix is the same; callers that need
+// a total order break ties by id (see AppVersionCatalog)
+public class VersionOrder {
+    // major.minor.patch with an optional platform suffix, e.g. 0.0.3a or 1.2i
+    private static final Pattern VERSION_PATTERN = Pattern.compile("^(\\d+)(?:\\.(\\d+))?(?:\\.(\\d+))?([a-zA-Z]*)$");
+    private static final int COMPONENT_BITS = 20;
+    private static final long COMPONENT_MAX = (1L << COMPONENT_BITS) - 1;
+    // 2^20 - 1 has 7 digits, so anything longer is too large and is never handed to parseLong
+    private static final int COMPONENT_MAX_DIGITS = String.valueOf(COMPONENT_MAX).length();
+
+    public static long of (String version) {
+        Matcher matcher = version == null ? null : VERSION_PATTERN.matcher(version.trim());
+        if (matcher == null || !matcher.matches()) {
+            throw new IllegalArgumentException("Invalid version format: " + version + ". Expected major[.minor[.patch]][suffix]");
+        }
+
+        long order = 0;
+        for (int group = 1; group <= 3; group++) {
+            long component = matcher.group(group) == null ? 0 : parseComponent(matcher.group(group), version);
+            order = (order << COMPONENT_BITS) | component;
+        }
+        return order;
+    }
+
+    private static long parseComponent (String component, String version) {
+        // The pattern only admits ASCII digits, so after dropping leading zeros the length bounds the value
+        String digits = component.replaceFirst("^0+(?=\\d)", "");
+        if (digits.length() <= COMPONENT_MAX_DIGITS) {
+            long value = Long.parseLong(digits);
+            if (value <= COMPONENT_MAX) return value;
+        }
+        throw new IllegalArgumentException("Version component is too large: " + version);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.util.Decompression;
+
+class DecompressionTests {
+
+	private static final byte[] CSV = "userId,platform,currentVersion\n2,ANDROID,0.0.1a\n".getBytes(StandardCharsets.UTF_8);
+
+	@Test
+	void gzipInputIsDecompressed() throws IOException {
+		try (InputStream input = Decompression.decompress(new ByteArrayInputStream(gzip(CSV)))) {
+			assertThat(input).isInstanceOf(GZIPInputStream.class);
+			assertThat(input.readAllBytes()).isEqualTo(CSV);
+		}
+	}
+
+	@Test
+	void plainInputIsPassedThroughUnchanged() throws IOException {
+		try (InputStream input = Decompression.decompress(new ByteArrayInputStream(CSV))) {
+			assertThat(input).isNotInstanceOf(GZIPInputStream.class);
+			assertThat(input.readAllBytes()).isEqualTo(CSV);
+		}
+	}
+
+	@Test
+	void onlyFirstMagicByteIsNotGzip() throws IOException {
+		byte[] data = {0x1f, 'a', 'b'};
+		try (InputStream input = Decompression.decompress(new ByteArrayInputStream(data))) {
+			assertThat(input.readAllBytes()).isEqualTo(data);
+		}
+	}
+
+	@Test
+	void veryShortInputsArePassedThrough() throws IOException {
+		try (InputStream input = Decompression.decompress(new ByteArrayInputStream(new byte[0]))) {
+			assertThat(input.readAllBytes()).isEmpty();
+		}
+		try (InputStream input = Decompression.decompress(new ByteArrayInputStream(new byte[] {0x1f}))) {
+			assertThat(input.readAllBytes()).containsExactly(0x1f);
+		}
+	}
+
+	private static byte[] gzip(byte[] data) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+			gzip.write(data);
+		}
+		return output.toByteArray();
+	}
+
+}
@@ -0,0 +1,56 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.util.NotificationCursor;
+
+class NotificationCursorTests {
+
+	@Test
+	void encodedCursorDecodesToSamePosition() {
+		NotificationCursor cursor = new NotificationCursor(LocalDateTime.of(2024, 1, 2, 17, 19, 10, 123456000), 29875001L);
+
+		assertThat(NotificationCursor.decode(cursor.encode())).isEqualTo(cursor);
+	}
+
+	@Test
+	void cursorOnWholeSecondRoundTrips() {
+		NotificationCursor cursor = new NotificationCursor(LocalDateTime.of(2024, 1, 2, 0, 0), 1L);
+
+		assertThat(NotificationCursor.decode(cursor.encode())).isEqualTo(cursor);
+	}
+
+	@Test
+	void encodedCursorIsUrlSafe() {
+		String encoded = new NotificationCursor(LocalDateTime.of(2024, 12, 31, 23, 59, 59, 999999000), Long.MAX_VALUE).encode();
+
+		assertThat(encoded).matches("[A-Za-z0-9_-]+");
+	}
+
+	@Test
+	void missingCursorMeansFirstPage() {
+		assertThat(NotificationCursor.decode(null)).isNull();
+		assertThat(NotificationCursor.decode("  ")).isNull();
+	}
+
+	@Test
+	void malformedCursorsAreRejected() {
+		assertThatThrownBy(() -> NotificationCursor.decode("not base64!")).isInstanceOf(IllegalArgumentException.class)
+			.hasMessageContaining("Invalid cursor");
+		assertThatThrownBy(() -> NotificationCursor.decode(encode("2024-01-02T17:19:10"))).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> NotificationCursor.decode(encode("yesterday_5"))).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> NotificationCursor.decode(encode("2024-01-02T17:19:10_abc"))).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static String encode(String value) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
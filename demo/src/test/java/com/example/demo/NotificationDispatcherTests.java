@@ -0,0 +1,239 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.example.demo.enums.NotificationType;
+import com.example.demo.enums.UpdateType;
+import com.example.demo.model.Notification;
+import com.example.demo.service.NotificationDispatcher;
+import com.example.demo.service.NotificationFanOutService;
+import com.example.demo.service.NotificationOutboxService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+// Runs the dispatcher against a local stub of the Bot API that accepts or rejects every message
+@SpringBootTest(properties = {
+	"notification.outbox.max-attempts=3",
+	"notification.outbox.backoff-initial=10s",
+	"notification.outbox.backoff-max=1m",
+	"notification.outbox.lease=5m",
+	"notification.outbox.rate-limit.global-per-second=1000",
+	"notification.outbox.rate-limit.per-chat-per-second=1000"})
+@ActiveProfiles("test")
+class NotificationDispatcherTests {
+
+	private static final AtomicBoolean failing = new AtomicBoolean();
+	private static final List<Long> sentToChats = new CopyOnWriteArrayList<>();
+	private static final AtomicLong nextChatId = new AtomicLong(1_000);
+	private static final HttpServer botApi = startBotApi();
+
+	@Autowired
+	private NotificationDispatcher notificationDispatcher;
+
+	@Autowired
+	private NotificationFanOutService notificationFanOutService;
+
+	@Autowired
+	private NotificationOutboxService notificationOutboxService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Long userId;
+	private Long chatId;
+
+	@DynamicPropertySource
+	static void botApiProperties(DynamicPropertyRegistry registry) {
+		registry.add("telegram.bot.base-url", () -> "http://127.0.0.1:" + botApi.getAddress().getPort() + "/bot");
+	}
+
+	@AfterAll
+	static void stopBotApi() {
+		botApi.stop(0);
+	}
+
+	@BeforeEach
+	void createUser() {
+		failing.set(false);
+		chatId = nextChatId.incrementAndGet();
+		userId = jdbcTemplate.queryForObject("INSERT INTO users (username, password, role_id, telegram_chat_id) " +
+			"VALUES (?, 'unused', 2, ?) RETURNING id", Long.class, "dispatcher-test-" + UUID.randomUUID(), chatId);
+	}
+
+	@AfterEach
+	void cleanUp() {
+		jdbcTemplate.update("DELETE FROM notification_outbox WHERE notification_id IN (SELECT id FROM notification WHERE user_id = ?)", userId);
+		jdbcTemplate.update("DELETE FROM notification WHERE user_id = ?", userId);
+		jdbcTemplate.update("DELETE FROM notification_unread_counter WHERE user_id = ?", userId);
+		jdbcTemplate.update("DELETE FROM user_device WHERE user_id = ?", userId);
+		jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+	}
+
+	@Test
+	void deliveredNotificationIsMarkedSentAndLeavesOutbox() {
+		Long notificationId = enqueueNotification();
+
+		notificationDispatcher.dispatch();
+
+		assertThat(sentToChats).contains(chatId);
+		assertThat(notificationStatus(notificationId)).isEqualTo(NotificationType.SENT);
+		assertThat(outboxRows(notificationId)).isZero();
+	}
+
+	@Test
+	void failedSendIsRetriedWithBackoff() {
+		Long notificationId = enqueueNotification();
+		failing.set(true);
+
+		notificationDispatcher.dispatch();
+
+		Map <String, Object> entry = outboxRow(notificationId);
+		assertThat(entry.get("status")).isEqualTo("PENDING");
+		assertThat(entry.get("attempts")).isEqualTo(1);
+		assertThat(entry.get("last_error")).asString().contains("stub");
+		assertThat(((Timestamp) entry.get("next_attempt_at")).toLocalDateTime())
+			.isCloseTo(LocalDateTime.now().plusSeconds(10), within(5, ChronoUnit.SECONDS));
+
+		// Not due yet, so the next poll leaves it alone
+		notificationDispatcher.dispatch();
+		assertThat(outboxRow(notificationId).get("attempts")).isEqualTo(1);
+
+		makeDue(notificationId);
+		notificationDispatcher.dispatch();
+		assertThat(outboxRow(notificationId).get("attempts")).isEqualTo(2);
+		assertThat(((Timestamp) outboxRow(notificationId).get("next_attempt_at")).toLocalDateTime())
+			.isCloseTo(LocalDateTime.now().plusSeconds(20), within(5, ChronoUnit.SECONDS));
+
+		failing.set(false);
+		makeDue(notificationId);
+		notificationDispatcher.dispatch();
+		assertThat(notificationStatus(notificationId)).isEqualTo(NotificationType.SENT);
+		assertThat(outboxRows(notificationId)).isZero();
+	}
+
+	@Test
+	void deliveryIsGivenUpAfterMaxAttempts() {
+		Long notificationId = enqueueNotification();
+		failing.set(true);
+
+		for (int attempt = 0; attempt < 3; attempt++) {
+			makeDue(notificationId);
+			notificationDispatcher.dispatch();
+		}
+
+		Map <String, Object> entry = outboxRow(notificationId);
+		assertThat(entry.get("status")).isEqualTo("FAILED");
+		assertThat(entry.get("attempts")).isEqualTo(3);
+		assertThat(notificationStatus(notificationId)).isEqualTo(NotificationType.FAILED);
+
+		makeDue(notificationId);
+		notificationDispatcher.dispatch();
+		assertThat(outboxRow(notificationId).get("attempts")).isEqualTo(3);
+	}
+
+	@Test
+	void expiredLeaseIsClaimedAgain() {
+		Long expired = enqueueNotification();
+		Long leased = enqueueNotification();
+		jdbcTemplate.update("UPDATE notification_outbox SET status = 'PROCESSING', locked_until = ? WHERE notification_id = ?",
+			LocalDateTime.now().minusSeconds(1), expired);
+		jdbcTemplate.update("UPDATE notification_outbox SET status = 'PROCESSING', locked_until = ? WHERE notification_id = ?",
+			LocalDateTime.now().plusMinutes(5), leased);
+
+		notificationDispatcher.dispatch();
+
+		assertThat(notificationStatus(expired)).isEqualTo(NotificationType.SENT);
+		assertThat(outboxRows(expired)).isZero();
+		assertThat(notificationStatus(leased)).isEqualTo(NotificationType.PENDING);
+		assertThat(outboxRow(leased).get("status")).isEqualTo("PROCESSING");
+	}
+
+	// Every notification gets a device of its own, so the dedup key never drops one
+	private Long enqueueNotification() {
+		Long deviceId = jdbcTemplate.queryForObject("INSERT INTO user_device (id, user_id, platform, current_version, last_seen, update_status) " +
+			"VALUES (nextval('user_device_id_seq'), ?, 'ANDROID', '0.0.1a', LOCALTIMESTAMP, 'DEPRECATED') RETURNING id", Long.class, userId);
+		List <Notification> inserted = notificationFanOutService.insertNew(List.of(new Notification(null, deviceId, null, userId, null,
+			"0.0.1a", null, "0.0.5a", null, UpdateType.DEPRECATED, NotificationType.PENDING, null, null, "test")));
+		notificationOutboxService.enqueueAll(inserted, Map.of(userId, chatId));
+		return inserted.get(0).getId();
+	}
+
+	private void makeDue(Long notificationId) {
+		jdbcTemplate.update("UPDATE notification_outbox SET next_attempt_at = ? WHERE notification_id = ?",
+			LocalDateTime.now().minusSeconds(1), notificationId);
+	}
+
+	private NotificationType notificationStatus(Long notificationId) {
+		return NotificationType.valueOf(jdbcTemplate.queryForObject("SELECT status FROM notification WHERE id = ?", String.class, notificationId));
+	}
+
+	private Map<String, Object> outboxRow(Long notificationId) {
+		return jdbcTemplate.queryForMap("SELECT * FROM notification_outbox WHERE notification_id = ?", notificationId);
+	}
+
+	private long outboxRows(Long notificationId) {
+		return jdbcTemplate.queryForObject("SELECT count(*) FROM notification_outbox WHERE notification_id = ?", Long.class, notificationId);
+	}
+
+	private static HttpServer startBotApi() {
+		try {
+			HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+			server.createContext("/bot", NotificationDispatcherTests::handle);
+			server.start();
+			return server;
+		}
+		catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void handle(HttpExchange exchange) throws IOException {
+		String response;
+		int status;
+		if (failing.get()) {
+			status = 500;
+			response = "{\"ok\":false,\"error_code\":500,\"description\":\"Internal Server Error: stub\"}";
+		}
+		else {
+			long chatId = new ObjectMapper().readTree(exchange.getRequestBody()).get("chat_id").asLong();
+			sentToChats.add(chatId);
+			status = 200;
+			response = "{\"ok\":true,\"result\":{\"message_id\":" + sentToChats.size() + ",\"date\":0," +
+				"\"chat\":{\"id\":" + chatId + ",\"type\":\"private\"},\"text\":\"test\"}}";
+		}
+		byte[] body = response.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, body.length);
+		try (OutputStream output = exchange.getResponseBody()) {
+			output.write(body);
+		}
+	}
+
+}
@@ -0,0 +1,119 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.demo.enums.NotificationType;
+import com.example.demo.enums.UpdateType;
+import com.example.demo.model.Notification;
+import com.example.demo.repository.NotificationRepository;
+import com.example.demo.service.NotificationFanOutService;
+import com.example.demo.service.NotificationService;
+import com.example.demo.service.NotificationUnreadCounterService;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class NotificationUnreadCounterTests {
+
+	@Autowired
+	private NotificationService notificationService;
+
+	@Autowired
+	private NotificationFanOutService notificationFanOutService;
+
+	@Autowired
+	private NotificationUnreadCounterService notificationUnreadCounterService;
+
+	@Autowired
+	private NotificationRepository notificationRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Long userId;
+
+	@BeforeEach
+	void createUser() {
+		userId = jdbcTemplate.queryForObject("INSERT INTO users (username, password, role_id) VALUES (?, 'unused', 2) RETURNING id",
+			Long.class, "counter-test-" + UUID.randomUUID());
+	}
+
+	@AfterEach
+	void cleanUp() {
+		jdbcTemplate.update("DELETE FROM notification WHERE user_id = ?", userId);
+		jdbcTemplate.update("DELETE FROM notification_unread_counter WHERE user_id = ?", userId);
+		jdbcTemplate.update("DELETE FROM user_device WHERE user_id = ?", userId);
+		jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+	}
+
+	@Test
+	void reconcileRepairsDriftedCounter() {
+		notificationFanOutService.insertNew(newNotifications(3));
+		jdbcTemplate.update("UPDATE notification_unread_counter SET unread_count = 42 WHERE user_id = ?", userId);
+
+		assertThat(notificationService.reconcileUnreadCounters()).isPositive();
+		assertThat(notificationUnreadCounterService.getUnreadCount(userId)).isEqualTo(3);
+	}
+
+	@Test
+	void reconcileDoesNotLoseConcurrentChanges() throws Exception {
+		List <Notification> existing = notificationFanOutService.insertNew(newNotifications(200));
+
+		AtomicBoolean writing = new AtomicBoolean(true);
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			Future<?> reader = executor.submit(() -> {
+				for (Notification notification : existing) notificationService.markAsRead(notification.getId());
+			});
+			Future<?> creator = executor.submit(() -> {
+				for (int i = 0; i < 100; i++) notificationFanOutService.insertNew(newNotifications(3));
+			});
+			Future<?> reconciler = executor.submit(() -> {
+				while (writing.get()) notificationUnreadCounterService.reconcile(userId);
+			});
+
+			reader.get(2, TimeUnit.MINUTES);
+			creator.get(2, TimeUnit.MINUTES);
+			writing.set(false);
+			reconciler.get(1, TimeUnit.MINUTES);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		long actual = notificationRepository.countByUserIdAndStatusIn(userId, NotificationUnreadCounterService.UNREAD_STATUSES);
+		assertThat(actual).isEqualTo(300);
+		assertThat(notificationUnreadCounterService.getUnreadCount(userId)).isEqualTo(actual);
+		assertThat(notificationUnreadCounterService.reconcile(userId)).isFalse();
+	}
+
+	// Every notification gets a device of its own, so the dedup key never drops one
+	private List<Notification> newNotifications(int count) {
+		List <Long> deviceIds = jdbcTemplate.queryForList("INSERT INTO user_device (id, user_id, platform, current_version, last_seen, update_status) " +
+			"SELECT nextval('user_device_id_seq'), ?, 'ANDROID', '0.0.1a', LOCALTIMESTAMP, 'DEPRECATED' FROM generate_series(1, ?) RETURNING id",
+			Long.class, userId, count);
+		List <Notification> notifications = new ArrayList<>();
+		for (Long deviceId : deviceIds) {
+			notifications.add(new Notification(null, deviceId, null, userId, null, "0.0.1a", null, "0.0.5a", null,
+				UpdateType.DEPRECATED, NotificationType.PENDING, null, null, "test"));
+		}
+		return notifications;
+	}
+
+}
@@ -0,0 +1,104 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.util.TeeInputStream;
+
+class TeeInputStreamTests {
+
+	private static final byte[] DATA = "userId,platform,currentVersion\n2,ANDROID,0.0.1a\n".getBytes(StandardCharsets.UTF_8);
+
+	@Test
+	void copiesEveryByteReadIntoBranch() throws IOException {
+		ByteArrayOutputStream branch = new ByteArrayOutputStream();
+		try (TeeInputStream tee = new TeeInputStream(new ByteArrayInputStream(DATA), branch)) {
+			assertThat(tee.read()).isEqualTo('u');
+			assertThat(tee.readAllBytes()).hasSize(DATA.length - 1);
+		}
+
+		assertThat(branch.toByteArray()).isEqualTo(DATA);
+	}
+
+	@Test
+	void skippedBytesAreStillCopied() throws IOException {
+		ByteArrayOutputStream branch = new ByteArrayOutputStream();
+		try (TeeInputStream tee = new TeeInputStream(new ByteArrayInputStream(DATA), branch)) {
+			assertThat(tee.skip(10)).isEqualTo(10);
+			assertThat(branch.toByteArray()).isEqualTo(Arrays.copyOf(DATA, 10));
+			assertThat(tee.skip(10_000)).isEqualTo(DATA.length - 10);
+			assertThat(tee.skip(5)).isZero();
+		}
+
+		assertThat(branch.toByteArray()).isEqualTo(DATA);
+	}
+
+	@Test
+	void closeDrainsUnreadBytesIntoBranch() throws IOException {
+		ByteArrayOutputStream branch = new ByteArrayOutputStream();
+		TeeInputStream tee = new TeeInputStream(new ByteArrayInputStream(DATA), branch);
+		tee.read(new byte[5], 0, 5);
+
+		tee.close();
+		assertThat(branch.toByteArray()).isEqualTo(DATA);
+	}
+
+	@Test
+	void closeClosesSourceAndBranch() throws IOException {
+		AtomicBoolean sourceClosed = new AtomicBoolean();
+		AtomicBoolean branchClosed = new AtomicBoolean();
+		ByteArrayInputStream source = new ByteArrayInputStream(DATA) {
+			@Override
+			public void close() {
+				sourceClosed.set(true);
+			}
+		};
+		ByteArrayOutputStream branch = new ByteArrayOutputStream() {
+			@Override
+			public void close() {
+				branchClosed.set(true);
+			}
+		};
+
+		new TeeInputStream(source, branch).close();
+		assertThat(sourceClosed).isTrue();
+		assertThat(branchClosed).isTrue();
+	}
+
+	@Test
+	void branchIsClosedEvenIfSourceFailsToClose() {
+		AtomicBoolean branchClosed = new AtomicBoolean();
+		ByteArrayInputStream source = new ByteArrayInputStream(DATA) {
+			@Override
+			public void close() throws IOException {
+				throw new IOException("source failed");
+			}
+		};
+		ByteArrayOutputStream branch = new ByteArrayOutputStream() {
+			@Override
+			public void close() {
+				branchClosed.set(true);
+			}
+		};
+
+		assertThatThrownBy(() -> new TeeInputStream(source, branch).close()).hasMessage("source failed");
+		assertThat(branchClosed).isTrue();
+	}
+
+	@Test
+	void markIsNotSupported() throws IOException {
+		try (TeeInputStream tee = new TeeInputStream(new ByteArrayInputStream(DATA), new ByteArrayOutputStream())) {
+			assertThat(tee.markSupported()).isFalse();
+		}
+	}
+
+}
@@ -0,0 +1,87 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.util.TokenBucket;
+
+class TokenBucketTests {
+
+	private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+	private void advance(Duration duration) {
+		now.addAndGet(duration.toNanos());
+	}
+
+	@Test
+	void startsFullAndAllowsBurstUpToCapacity() {
+		TokenBucket bucket = new TokenBucket(3, 1, now::get);
+
+		assertThat(bucket.isFull()).isTrue();
+		assertThat(bucket.tryAcquire()).isTrue();
+		assertThat(bucket.tryAcquire()).isTrue();
+		assertThat(bucket.tryAcquire()).isTrue();
+		assertThat(bucket.tryAcquire()).isFalse();
+	}
+
+	@Test
+	void refillsAtConfiguredRate() {
+		TokenBucket bucket = new TokenBucket(1, 30, now::get);
+		assertThat(bucket.tryAcquire()).isTrue();
+
+		assertThat(bucket.timeToNextToken()).isEqualTo(Duration.ofNanos(33_333_334));
+		advance(Duration.ofMillis(20));
+		assertThat(bucket.tryAcquire()).isFalse();
+		advance(Duration.ofMillis(14));
+		assertThat(bucket.tryAcquire()).isTrue();
+	}
+
+	@Test
+	void refillNeverExceedsCapacity() {
+		TokenBucket bucket = new TokenBucket(2, 1, now::get);
+		bucket.tryAcquire();
+		bucket.tryAcquire();
+
+		advance(Duration.ofMinutes(10));
+		assertThat(bucket.isFull()).isTrue();
+		assertThat(bucket.tryAcquire()).isTrue();
+		assertThat(bucket.tryAcquire()).isTrue();
+		assertThat(bucket.tryAcquire()).isFalse();
+	}
+
+	@Test
+	void pauseDelaysNextTokenByRetryAfter() {
+		TokenBucket bucket = new TokenBucket(1, 1, now::get);
+
+		bucket.pause(Duration.ofSeconds(5));
+		assertThat(bucket.tryAcquire()).isFalse();
+		assertThat(bucket.timeToNextToken()).isEqualTo(Duration.ofSeconds(5));
+
+		advance(Duration.ofMillis(4_999));
+		assertThat(bucket.tryAcquire()).isFalse();
+		advance(Duration.ofMillis(1));
+		assertThat(bucket.tryAcquire()).isTrue();
+		assertThat(bucket.tryAcquire()).isFalse();
+	}
+
+	@Test
+	void shorterPauseDoesNotShortenLongerOne() {
+		TokenBucket bucket = new TokenBucket(1, 1, now::get);
+
+		bucket.pause(Duration.ofSeconds(10));
+		bucket.pause(Duration.ofSeconds(2));
+		assertThat(bucket.timeToNextToken()).isEqualTo(Duration.ofSeconds(10));
+	}
+
+	@Test
+	void fullBucketHasNoWait() {
+		TokenBucket bucket = new TokenBucket(1, 1, now::get);
+
+		assertThat(bucket.timeToNextToken()).isEqualTo(Duration.ZERO);
+	}
+
+}
@@ -0,0 +1,71 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.util.VersionOrder;
+
+class VersionOrderTests {
+
+	@Test
+	void packsComponentsIntoTwentyBitFields() {
+		assertThat(VersionOrder.of("1.2.3")).isEqualTo((1L << 40) | (2L << 20) | 3L);
+		assertThat(VersionOrder.of("0.0.0")).isZero();
+	}
+
+	@Test
+	void missingComponentsCountAsZero() {
+		assertThat(VersionOrder.of("1")).isEqualTo(VersionOrder.of("1.0.0"));
+		assertThat(VersionOrder.of("1.2")).isEqualTo(VersionOrder.of("1.2.0"));
+	}
+
+	@Test
+	void platformSuffixDoesNotAffectOrder() {
+		assertThat(VersionOrder.of("0.0.3a")).isEqualTo(VersionOrder.of("0.0.3"));
+		assertThat(VersionOrder.of("1.2i")).isEqualTo(VersionOrder.of("1.2.0"));
+		assertThat(VersionOrder.of(" 0.0.3a ")).isEqualTo(VersionOrder.of("0.0.3a"));
+	}
+
+	@Test
+	void ordersNumericallyNotLexically() {
+		assertThat(VersionOrder.of("0.0.10a")).isGreaterThan(VersionOrder.of("0.0.9a"));
+		assertThat(VersionOrder.of("0.10.0")).isGreaterThan(VersionOrder.of("0.9.99"));
+		assertThat(VersionOrder.of("2.0.0")).isGreaterThan(VersionOrder.of("1.1048575.1048575"));
+	}
+
+	@Test
+	void largestComponentFitsWithoutOverflowingIntoNeighbour() {
+		long max = (1L << 20) - 1;
+
+		assertThat(VersionOrder.of("0.0." + max)).isEqualTo(max);
+		assertThat(VersionOrder.of("0." + max + ".0")).isEqualTo(max << 20);
+		assertThat(VersionOrder.of(max + "." + max + "." + max)).isEqualTo((1L << 60) - 1);
+	}
+
+	@Test
+	void leadingZerosDoNotCountTowardsComponentSize() {
+		assertThat(VersionOrder.of("0.00000000000010.01")).isEqualTo(VersionOrder.of("0.10.1"));
+	}
+
+	@Test
+	void componentsOfTwoToTheTwentyOrMoreAreRejected() {
+		assertThatThrownBy(() -> VersionOrder.of("0.0.1048576")).isInstanceOf(IllegalArgumentException.class)
+			.hasMessageContaining("too large");
+		assertThatThrownBy(() -> VersionOrder.of("1048576")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> VersionOrder.of("1.99999999999999999999.0")).isInstanceOf(IllegalArgumentException.class)
+			.hasMessageContaining("too large");
+	}
+
+	@Test
+	void malformedVersionsAreRejected() {
+		assertThatThrownBy(() -> VersionOrder.of(null)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> VersionOrder.of("")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> VersionOrder.of("abc")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> VersionOrder.of("1.2.3.4")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> VersionOrder.of("1.a.3")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> VersionOrder.of("1.2.3-beta")).isInstanceOf(IllegalArgumentException.class);
+	}
+
+}